@@ -5,7 +5,7 @@ echo "====================================================="
 
 echo ""
 echo "Compiling Java source files..."
-javac src/UserInput.java
+javac src/*.java
 
 if [ $? -ne 0 ]; then
     echo "ERROR: Compilation failed!"
@@ -14,9 +14,22 @@ fi
 
 echo "✅ Compilation successful!"
 
+echo ""
+echo "Compiling optional Vector API (SIMD) kernels..."
+if java --list-modules 2>/dev/null | grep -q "^jdk.incubator.vector@"; then
+    javac --add-modules jdk.incubator.vector -cp src -d src src-vector/*.java
+    if [ $? -ne 0 ]; then
+        echo "ERROR: Vector kernel compilation failed!"
+        exit 1
+    fi
+    echo "✅ Vector kernels compiled; run with --add-modules jdk.incubator.vector to use them"
+else
+    echo "ℹ️  jdk.incubator.vector not available, the scalar kernels will be used"
+fi
+
 echo ""
 echo "Creating JAR file..."
-jar cfm UserInput.jar MANIFEST.MF -C src UserInput.class
+jar cfm UserInput.jar MANIFEST.MF -C src .
 
 if [ $? -ne 0 ]; then
     echo "ERROR: JAR creation failed!"
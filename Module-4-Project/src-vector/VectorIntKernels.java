@@ -0,0 +1,159 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API (SIMD) versions of the {@link IntKernels}, loaded by {@link IntKernels#INSTANCE}
+ * when the JVM runs with {@code --add-modules jdk.incubator.vector}.
+ *
+ * <p>Kept apart from {@code src/} because the incubator module is only visible to javac with
+ * {@code --add-modules jdk.incubator.vector}; {@code build.sh} compiles this directory into
+ * {@code src/} when the JDK has the module, and the plain {@code javac src/*.java} build never
+ * references it.
+ *
+ * <p>All kernels use the preferred species of the CPU: 16 ints or 64 bytes per register with
+ * AVX-512, 8 ints or 32 bytes with AVX2.
+ */
+final class VectorIntKernels extends IntKernels {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final int LANES = INTS.length();
+    private static final IntVector IOTA = IntVector.zero(INTS).addIndex(1);
+    private static final IntVector MAX = IntVector.broadcast(INTS, Integer.MAX_VALUE);
+
+    /** One register of ints per thread for {@link #sortSmall}; the kernels are shared by all threads. */
+    private static final ThreadLocal<int[]> SCRATCH = ThreadLocal.withInitial(() -> new int[LANES]);
+
+    /**
+     * The bitonic sorting network for one register: stage s compares every lane with the lane
+     * {@code PARTNERS[s]} moves next to it and keeps the minimum where {@code TAKE_MIN[s]} is set.
+     */
+    private static final VectorShuffle<Integer>[] PARTNERS;
+    private static final VectorMask<Integer>[] TAKE_MIN;
+
+    static {
+        int stages = 0;
+        for (int k = 2; k <= LANES; k <<= 1) {
+            for (int j = k >> 1; j > 0; j >>= 1) {
+                stages++;
+            }
+        }
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        VectorShuffle<Integer>[] partners = new VectorShuffle[stages];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        VectorMask<Integer>[] takeMin = new VectorMask[stages];
+        int s = 0;
+        for (int k = 2; k <= LANES; k <<= 1) {
+            for (int j = k >> 1; j > 0; j >>= 1) {
+                int[] partner = new int[LANES];
+                boolean[] min = new boolean[LANES];
+                for (int i = 0; i < LANES; i++) {
+                    partner[i] = i ^ j;
+                    // the lower lane of a pair keeps the minimum in an ascending block of size k
+                    min[i] = ((i & j) == 0) == ((i & k) == 0);
+                }
+                partners[s] = VectorShuffle.fromArray(INTS, partner, 0);
+                takeMin[s] = VectorMask.fromArray(INTS, min, 0);
+                s++;
+            }
+        }
+        PARTNERS = partners;
+        TAKE_MIN = takeMin;
+    }
+
+    /** Requires at least 4 int lanes; narrower vectors would not beat the scalar loops. */
+    VectorIntKernels() {
+        if (LANES < 4 || BYTES.length() > Long.SIZE) {
+            throw new IllegalStateException("Unsupported vector shape " + INTS);
+        }
+    }
+
+    @Override
+    long minMax(int[] values, int from, int to) {
+        int upper = from + INTS.loopBound(to - from);
+        if (upper == from) {
+            return super.minMax(values, from, to);
+        }
+        IntVector min = IntVector.fromArray(INTS, values, from);
+        IntVector max = min;
+        for (int i = from + LANES; i < upper; i += LANES) {
+            IntVector v = IntVector.fromArray(INTS, values, i);
+            min = min.min(v);
+            max = max.max(v);
+        }
+        int lo = min.reduceLanes(VectorOperators.MIN);
+        int hi = max.reduceLanes(VectorOperators.MAX);
+        for (int i = upper; i < to; i++) {
+            lo = Math.min(lo, values[i]);
+            hi = Math.max(hi, values[i]);
+        }
+        return pack(lo, hi);
+    }
+
+    @Override
+    boolean sortSmall(int[] values, int from, int to) {
+        int n = to - from;
+        if (n > LANES) {
+            return false;
+        }
+        // Unused lanes hold MAX_VALUE, which sorts to the end. Masked loads and stores are not
+        // intrinsified on JDK 17, so the block is read whole (values after it are only read)
+        // and written back through a scratch array, never touching values[to..].
+        int[] scratch = SCRATCH.get();
+        IntVector v;
+        if (from + LANES <= values.length) {
+            v = MAX.blend(IntVector.fromArray(INTS, values, from), IOTA.compare(VectorOperators.LT, n));
+        } else {
+            System.arraycopy(values, from, scratch, 0, n);
+            Arrays.fill(scratch, n, LANES, Integer.MAX_VALUE);
+            v = IntVector.fromArray(INTS, scratch, 0);
+        }
+        for (int s = 0; s < PARTNERS.length; s++) {
+            IntVector partner = v.rearrange(PARTNERS[s]);
+            v = v.max(partner).blend(v.min(partner), TAKE_MIN[s]);
+        }
+        v.intoArray(scratch, 0);
+        System.arraycopy(scratch, 0, values, from, n);
+        return true;
+    }
+
+    @Override
+    int countTokens(ByteBuffer bytes, int from, int to) {
+        int lanes = BYTES.length();
+        int upper = from + BYTES.loopBound(to - from);
+        int count = 0;
+        long previousDelimiter = 1;
+        long highLane = lanes - 1;
+        for (int i = from; i < upper; i += lanes) {
+            ByteVector v = ByteVector.fromByteBuffer(BYTES, bytes, i, ByteOrder.LITTLE_ENDIAN);
+            long delimiters = v.eq((byte) ' ').or(v.eq((byte) ',')).or(v.eq((byte) '\n')).or(v.eq((byte) '\r')).toLong();
+            // a token starts at every non-delimiter whose left neighbour is a delimiter
+            long before = delimiters << 1 | previousDelimiter;
+            count += Long.bitCount(~delimiters & before & mask(lanes));
+            previousDelimiter = delimiters >>> highLane & 1;
+        }
+        for (int i = upper; i < to; i++) {
+            int delimiter = isDelimiter(bytes.get(i)) ? 1 : 0;
+            count += (int) previousDelimiter & (delimiter ^ 1);
+            previousDelimiter = delimiter;
+        }
+        return count;
+    }
+
+    @Override
+    String describe() {
+        return "vector (" + LANES + " x int)";
+    }
+
+    private static long mask(int lanes) {
+        return lanes == Long.SIZE ? -1L : (1L << lanes) - 1;
+    }
+}
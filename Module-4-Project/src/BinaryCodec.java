@@ -0,0 +1,296 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.function.IntConsumer;
+
+/**
+ * Binary INPUT/OUTPUT LAYER: integers as bytes instead of decimal text.
+ *
+ * <p>Parsing decimal digits on the way in and formatting them on the way out can cost more than
+ * the sort itself. Two binary formats skip both:
+ * <ul>
+ *   <li>{@link Format#RAW} - every value as a little-endian 32-bit int, 4 bytes per value, no
+ *       header (the layout of a C {@code int32_t[]} or NumPy {@code '<i4'} array);</li>
+ *   <li>{@link Format#DELTA} - each value as the difference to the previous one (the first
+ *       relative to 0), zigzag-encoded and written as a LEB128 varint of 7 bits per byte. Sorted
+ *       output has small non-negative gaps, so dense sorted data shrinks to 1 or 2 bytes per
+ *       value. Unsorted data still round-trips, since differences wrap around like {@code int}
+ *       arithmetic and zigzag maps negative gaps to small codes.</li>
+ * </ul>
+ *
+ * <p>Neither format stores a count; a stream ends at end of input. A stream that ends inside a
+ * value fails with an {@link EOFException}.
+ *
+ * <pre>
+ *   try (OutputStream file = Files.newOutputStream(path)) {
+ *       BinaryCodec.write(sorted, 0, sorted.length, BinaryCodec.Format.DELTA, file);
+ *   }
+ *   IntList back = BinaryCodec.read(path, BinaryCodec.Format.DELTA);
+ * </pre>
+ */
+public final class BinaryCodec {
+
+    /** Binary encodings of a sequence of ints. */
+    public enum Format {
+        /** Little-endian 32-bit ints. */
+        RAW,
+        /** Zigzag varints of the differences between consecutive values. */
+        DELTA;
+
+        /**
+         * Parses a format name, ignoring case.
+         *
+         * @param name {@code raw} or {@code delta}
+         * @return the format
+         * @throws IllegalArgumentException if the name is unknown
+         */
+        public static Format parse(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown binary format: " + name, e);
+            }
+        }
+    }
+
+    /** I/O buffer size in bytes. */
+    static final int BUFFER_BYTES = 1 << 16;
+
+    private BinaryCodec() {
+    }
+
+    /**
+     * Writes {@code values[from, to)} to {@code out} and flushes it.
+     *
+     * @param values the array holding the values
+     * @param from index of the first value to write
+     * @param to index one past the last value to write
+     * @param format the encoding
+     * @param out the stream to write to; flushed but not closed
+     * @throws IOException if the stream fails
+     */
+    public static void write(int[] values, int from, int to, Format format, OutputStream out) throws IOException {
+        Encoder encoder = new Encoder(out, format);
+        encoder.write(values, from, to);
+        encoder.flush();
+    }
+
+    /**
+     * Encodes {@code values[from, to)} into a byte array.
+     *
+     * @param values the array holding the values
+     * @param from index of the first value to encode
+     * @param to index one past the last value to encode
+     * @param format the encoding
+     * @return the encoded bytes
+     */
+    public static byte[] encode(int[] values, int from, int to, Format format) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+                format == Format.RAW ? (int) Math.min((to - from) * 4L, Integer.MAX_VALUE - 8) : to - from);
+        try {
+            write(values, from, to, format, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // not thrown by ByteArrayOutputStream
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a whole byte array.
+     *
+     * @param bytes the encoded values
+     * @param format the encoding
+     * @return the values in stream order
+     * @throws IllegalArgumentException if the bytes end inside a value or hold a malformed varint
+     */
+    public static int[] decode(byte[] bytes, Format format) {
+        IntList values = new IntList(format == Format.RAW ? bytes.length / Integer.BYTES : bytes.length);
+        try {
+            forEach(new ByteArrayInputStream(bytes), format, values);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        return values.toArray();
+    }
+
+    /**
+     * Reads every value of a file; a {@link Format#RAW} buffer is sized from the file length.
+     *
+     * @param file the file to read
+     * @param format the encoding
+     * @return the values in file order
+     * @throws IOException if the file cannot be read or ends inside a value
+     */
+    public static IntList read(Path file, Format format) throws IOException {
+        long bytes = Files.size(file);
+        IntList values = new IntList(format == Format.RAW ? (int) Math.min(bytes / Integer.BYTES, Integer.MAX_VALUE - 8) : 16);
+        try (InputStream in = Files.newInputStream(file)) {
+            forEach(in, format, values);
+        }
+        return values;
+    }
+
+    /**
+     * Reads every value until the end of the stream.
+     *
+     * @param in the stream to read; not closed
+     * @param format the encoding
+     * @return the values in stream order
+     * @throws IOException if the stream fails or ends inside a value
+     */
+    public static IntList read(InputStream in, Format format) throws IOException {
+        IntList values = new IntList();
+        forEach(in, format, values);
+        return values;
+    }
+
+    /**
+     * Passes every value to {@code out} until the end of the stream, e.g. into an
+     * {@link ExternalSort} or a {@link PartialSort.TopK}.
+     *
+     * @param in the stream to read; not closed
+     * @param format the encoding
+     * @param out receives the values in stream order
+     * @throws IOException if the stream fails, ends inside a value or holds a malformed varint
+     */
+    public static void forEach(InputStream in, Format format, IntConsumer out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] array = buffer.array();
+        int previous = 0;
+        int pending = 0;
+        int shift = 0;
+        int kept = 0;
+        int n;
+        while ((n = in.read(array, kept, array.length - kept)) >= 0) {
+            int limit = kept + n;
+            if (format == Format.RAW) {
+                int whole = limit & ~(Integer.BYTES - 1);
+                for (int i = 0; i < whole; i += Integer.BYTES) {
+                    out.accept(buffer.getInt(i));
+                }
+                // carry a value split across reads to the front of the buffer
+                kept = limit - whole;
+                System.arraycopy(array, whole, array, 0, kept);
+            } else {
+                for (int i = 0; i < limit; i++) {
+                    int b = array[i];
+                    if (shift == 28 && (b & 0x70) != 0) {
+                        throw new IOException("Malformed varint: value exceeds 32 bits");
+                    }
+                    pending |= (b & 0x7F) << shift;
+                    if (b >= 0) {
+                        previous += (pending >>> 1) ^ -(pending & 1);
+                        out.accept(previous);
+                        pending = 0;
+                        shift = 0;
+                    } else if ((shift += 7) > 28) {
+                        throw new IOException("Malformed varint: more than 5 bytes");
+                    }
+                }
+            }
+        }
+        if (kept != 0 || shift != 0) {
+            throw new EOFException("Binary input ends inside a value");
+        }
+    }
+
+    /**
+     * Buffered streaming encoder, usable as the {@link IntConsumer} of a producer such as
+     * {@link ExternalSort#finish(IntConsumer)}. The underlying stream is flushed by
+     * {@link #flush()} but never closed.
+     */
+    public static final class Encoder implements IntConsumer, Flushable {
+        private final OutputStream out;
+        private final Format format;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private int previous;
+
+        /**
+         * Creates an encoder.
+         *
+         * @param out the stream to write to
+         * @param format the encoding
+         */
+        public Encoder(OutputStream out, Format format) {
+            this.out = out;
+            this.format = format;
+        }
+
+        /**
+         * Encodes {@code values[from, to)}.
+         *
+         * @param values the array holding the values
+         * @param from index of the first value to write
+         * @param to index one past the last value to write
+         * @throws IOException if the stream fails
+         */
+        public void write(int[] values, int from, int to) throws IOException {
+            for (int i = from; i < to; i++) {
+                if (buffer.remaining() < 5) {
+                    drain();
+                }
+                put(values[i]);
+            }
+        }
+
+        /**
+         * Encodes one value.
+         *
+         * @param value the value to write
+         * @throws UncheckedIOException if the stream fails
+         */
+        @Override
+        public void accept(int value) {
+            try {
+                if (buffer.remaining() < 5) {
+                    drain();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            put(value);
+        }
+
+        /**
+         * Writes the buffered bytes and flushes the underlying stream.
+         *
+         * @throws IOException if the stream fails
+         */
+        @Override
+        public void flush() throws IOException {
+            drain();
+            out.flush();
+        }
+
+        /** Appends one value; the caller guarantees 5 free bytes. */
+        private void put(int value) {
+            if (format == Format.RAW) {
+                buffer.putInt(value);
+                return;
+            }
+            int delta = value - previous;
+            previous = value;
+            int zigzag = (delta << 1) ^ (delta >> 31);
+            while ((zigzag & ~0x7F) != 0) {
+                buffer.put((byte) (zigzag | 0x80));
+                zigzag >>>= 7;
+            }
+            buffer.put((byte) zigzag);
+        }
+
+        private void drain() throws IOException {
+            out.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+import java.net.SocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Command-line flags accepted by {@link UserInput#main(String[])}.
+ *
+ * <p>With no flags the program behaves exactly as before: one line from standard input,
+ * read with {@code Scanner.nextLine()} and sorted sequentially with {@link SortStrategy#AUTO}.
+ */
+final class CommandLineOptions {
+
+    /** Printed when a flag is not recognised. */
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java UserInput [options]",
+            "  --sort=<auto|comparison|radix|counting>  sorting algorithm (default auto)",
+            "  --parallel[=<threshold>]                 fork-join sort for inputs of at least",
+            "                                           <threshold> values (default "
+                    + ParallelSort.DEFAULT_THRESHOLD + ")",
+            "  --stream                                 parse standard input while reading it,",
+            "                                           without holding the line as a String",
+            "  --external[=<megabytes>]                 external merge sort spilling sorted runs to",
+            "                                           disk, within a memory budget (default "
+                    + (ExternalSort.DEFAULT_MEMORY_BYTES >> 20) + ")",
+            "  --temp-dir=<directory>                   directory for --external run files",
+            "  --file=<path>                            read integers from a file (memory-mapped)",
+            "                                           instead of standard input",
+            "  --capacity=<count>                       expected number of integers, so --stream",
+            "                                           allocates its buffer once",
+            "  --first=<n>                              print only the n smallest values, ascending",
+            "  --top=<n>                                print only the n largest values, descending",
+            "  --kth=<k>                                print only the k-th smallest value (1-based)",
+            "  --distinct                               print the sorted values without duplicates",
+            "  --counts                                 print each distinct value with its count",
+            "  --input-format=<text|raw|delta>          read standard input or --file as decimal text",
+            "                                           (default), little-endian int32 or delta varints",
+            "  --output-format=<text|raw|delta>         write the sorted values as text (default) or",
+            "                                           in a binary format, without the label",
+            "  --width=<auto|int|long|big_integer>      integer width of a standard-input line; auto",
+            "                                           (default) widens to long or BigInteger only",
+            "                                           when a value does not fit in an int",
+            "  --off-heap                               keep the values in off-heap memory, so more",
+            "                                           than 2^31 of them sort with a small heap",
+            "  --stats                                  print per-stage time, elements, bytes and",
+            "                                           allocation to standard error when done",
+            "  --serve=<port|unix:path>                 keep running and sort every line sent over",
+            "                                           a loopback TCP port or Unix-domain socket",
+            "  --cache[=<megabytes>]                    with --serve, answer repeated lines from a",
+            "                                           result cache of this size (default "
+                    + (ResultCache.DEFAULT_MAX_BYTES >> 20) + ")");
+
+    /** Sequential algorithm, also used for each piece of a parallel sort. */
+    SortStrategy strategy = SortStrategy.AUTO;
+
+    /** Minimum input size for the parallel sort; 0 keeps sorting sequential. */
+    int parallelThreshold;
+
+    /** Read standard input with {@link StreamingParser} instead of {@code Scanner.nextLine()}. */
+    boolean stream;
+
+    /** Memory budget in bytes for {@link ExternalSort}; 0 keeps sorting in memory. */
+    long externalMemoryBytes;
+
+    /** Directory for external sort run files; null for the system default. */
+    Path tempDir;
+
+    /** Integer file to read with {@link MappedFileParser}; null reads standard input. */
+    Path file;
+
+    /** Capacity hint for the {@code --stream} buffer; 0 when unknown. */
+    int capacity;
+
+    /** Print only this many smallest values ({@link PartialSort}); 0 prints all of them. */
+    int first;
+
+    /** Print only this many largest values ({@link PartialSort}); 0 prints all of them. */
+    int top;
+
+    /** Print only the k-th smallest value, 1-based ({@link PartialSort#select}); 0 when unset. */
+    int kth;
+
+    /** Print the sorted distinct values ({@link Frequencies}). */
+    boolean distinct;
+
+    /** Print every distinct value with its count ({@link Frequencies}). */
+    boolean counts;
+
+    /** Binary encoding of the input ({@link BinaryCodec}); null for decimal text. */
+    BinaryCodec.Format inputFormat;
+
+    /** Binary encoding of the sorted output ({@link BinaryCodec}); null for decimal text. */
+    BinaryCodec.Format outputFormat;
+
+    /** Width of the Scanner line path; {@link NumberWidth#AUTO} widens only on overflow. */
+    NumberWidth width = NumberWidth.AUTO;
+
+    /** Store and sort the values in an {@link OffHeapIntList} instead of an {@link IntList}. */
+    boolean offHeap;
+
+    /** Print the {@link PipelineMetrics.Summary} of the run to standard error. */
+    boolean stats;
+
+    /** Address for {@link SortServer} mode; null sorts one input and exits. */
+    SocketAddress serveAddress;
+
+    /** Memory budget in bytes for the server's {@link ResultCache}; 0 disables it. */
+    long cacheBytes;
+
+    private CommandLineOptions() {
+    }
+
+    /**
+     * Parses the program arguments.
+     *
+     * @param args command-line arguments
+     * @return the parsed options
+     * @throws IllegalArgumentException if an argument is not recognised or malformed
+     */
+    static CommandLineOptions parse(String[] args) {
+        CommandLineOptions options = new CommandLineOptions();
+        for (String arg : args) {
+            if (arg.startsWith("--sort=")) {
+                options.strategy = parseStrategy(value(arg));
+            } else if (arg.equals("--parallel")) {
+                options.parallelThreshold = ParallelSort.DEFAULT_THRESHOLD;
+            } else if (arg.startsWith("--parallel=")) {
+                options.parallelThreshold = parsePositive(arg, value(arg));
+            } else if (arg.equals("--stream")) {
+                options.stream = true;
+            } else if (arg.equals("--external")) {
+                options.externalMemoryBytes = ExternalSort.DEFAULT_MEMORY_BYTES;
+            } else if (arg.startsWith("--external=")) {
+                options.externalMemoryBytes = (long) parsePositive(arg, value(arg)) << 20;
+            } else if (arg.startsWith("--temp-dir=")) {
+                options.tempDir = Paths.get(value(arg));
+            } else if (arg.startsWith("--capacity=")) {
+                options.capacity = parsePositive(arg, value(arg));
+            } else if (arg.startsWith("--first=")) {
+                options.first = parsePositive(arg, value(arg));
+            } else if (arg.startsWith("--top=")) {
+                options.top = parsePositive(arg, value(arg));
+            } else if (arg.startsWith("--kth=")) {
+                options.kth = parsePositive(arg, value(arg));
+            } else if (arg.equals("--distinct")) {
+                options.distinct = true;
+            } else if (arg.equals("--counts")) {
+                options.counts = true;
+            } else if (arg.startsWith("--input-format=")) {
+                options.inputFormat = parseFormat(value(arg));
+            } else if (arg.startsWith("--output-format=")) {
+                options.outputFormat = parseFormat(value(arg));
+            } else if (arg.startsWith("--width=")) {
+                options.width = parseWidth(value(arg));
+            } else if (arg.equals("--off-heap")) {
+                options.offHeap = true;
+            } else if (arg.equals("--stats")) {
+                options.stats = true;
+            } else if (arg.startsWith("--serve=")) {
+                options.serveAddress = SortServer.parseAddress(value(arg));
+            } else if (arg.equals("--cache")) {
+                options.cacheBytes = ResultCache.DEFAULT_MAX_BYTES;
+            } else if (arg.startsWith("--cache=")) {
+                options.cacheBytes = (long) parsePositive(arg, value(arg)) << 20;
+            } else if (arg.startsWith("--file=")) {
+                options.file = Paths.get(value(arg));
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        int selections = (options.first > 0 ? 1 : 0) + (options.top > 0 ? 1 : 0) + (options.kth > 0 ? 1 : 0)
+                + (options.distinct ? 1 : 0) + (options.counts ? 1 : 0);
+        if (selections > 1 || (selections == 1 && options.externalMemoryBytes > 0)) {
+            throw new IllegalArgumentException(
+                    "Use at most one of --first, --top, --kth, --distinct and --counts, without --external");
+        }
+        if (selections > 0 && (options.inputFormat != null || options.outputFormat != null)) {
+            throw new IllegalArgumentException("Binary formats only apply to full sorts");
+        }
+        if (options.offHeap && (selections > 0 || options.externalMemoryBytes > 0 || options.serveAddress != null)) {
+            throw new IllegalArgumentException("--off-heap only applies to full sorts, without --external or --serve");
+        }
+        if (options.cacheBytes > 0 && options.serveAddress == null) {
+            throw new IllegalArgumentException("--cache only applies to --serve");
+        }
+        if (options.width != NumberWidth.AUTO && (options.file != null || options.stream || selections > 0
+                || options.inputFormat != null || options.outputFormat != null || options.externalMemoryBytes > 0
+                || options.offHeap || options.serveAddress != null)) {
+            // every other mode reads ints only, so a wider --width would be silently ignored
+            throw new IllegalArgumentException("--width only applies to a standard-input line, without --file, "
+                    + "--stream, --external, --off-heap, --serve, binary formats or selections");
+        }
+        if (options.capacity > 0 && !options.stream) {
+            throw new IllegalArgumentException("--capacity only applies to --stream");
+        }
+        return options;
+    }
+
+    private static String value(String arg) {
+        return arg.substring(arg.indexOf('=') + 1);
+    }
+
+    private static SortStrategy parseStrategy(String name) {
+        try {
+            return SortStrategy.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown sort strategy: " + name, e);
+        }
+    }
+
+    private static NumberWidth parseWidth(String name) {
+        try {
+            return NumberWidth.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown integer width: " + name, e);
+        }
+    }
+
+    /** Returns null for {@code text}, the default. */
+    private static BinaryCodec.Format parseFormat(String name) {
+        return name.equalsIgnoreCase("text") ? null : BinaryCodec.Format.parse(name);
+    }
+
+    private static int parsePositive(String arg, String number) {
+        try {
+            int value = Integer.parseInt(number);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Expected a positive integer in " + arg);
+    }
+}
@@ -0,0 +1,269 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+/**
+ * Concurrent STORAGE LAYER: several producer threads add parsed integers, one consumer sorts them.
+ *
+ * <p>Funnelling every value through one shared buffer needs a lock (as {@code Stack.push} does)
+ * or a contended CAS per value. Here every producer thread appends to its own striped
+ * {@link Producer} buffer, a growable {@code int[]} touched by no other thread, so an append
+ * is a plain array store with no lock and no CAS. Each append publishes the new size with a
+ * release store, and the consumer reads it with an acquire load. When the consumer calls
+ * {@link #sort(SortStrategy)}, the collector is sealed, the stripes are concatenated into one
+ * {@link IntList}, and it is sorted, in parallel if requested.
+ *
+ * <p>Producers either take a handle once with {@link #newProducer()} (fastest) or simply call
+ * {@link #accept(int)}, which finds the calling thread's stripe through a {@link ThreadLocal}.
+ * Both are {@link IntConsumer}s, so they can be handed straight to a {@link StreamingParser}:
+ * <pre>
+ *   ConcurrentIntCollector collector = new ConcurrentIntCollector();
+ *   // on each reader thread:
+ *   new StreamingParser(socketStream).readLine(collector.newProducer());
+ *   // once every reader has finished (e.g. after joining them):
+ *   IntList sorted = collector.sort(SortStrategy.AUTO, ParallelSort.DEFAULT_THRESHOLD);
+ * </pre>
+ *
+ * <p>Producers must finish before the consumer seals the collector, e.g. by joining the threads,
+ * awaiting the executor or counting down a latch. Adds that arrive after sealing fail with an
+ * {@link IllegalStateException} instead of being dropped silently; an add racing with
+ * {@code sort} is a caller bug that this cannot always detect.
+ */
+public final class ConcurrentIntCollector implements IntConsumer {
+
+    /** Default initial capacity of each producer's buffer. */
+    public static final int DEFAULT_STRIPE_CAPACITY = 1024;
+
+    private static final int[] EMPTY = new int[0];
+
+    private static final VarHandle SIZE;
+    private static final VarHandle VALUES;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            SIZE = lookup.findVarHandle(Producer.class, "size", int.class);
+            VALUES = lookup.findVarHandle(Producer.class, "values", int[].class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int stripeCapacity;
+    private final ConcurrentLinkedQueue<Producer> producers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Producer> perThread = ThreadLocal.withInitial(this::newProducer);
+    private final AtomicBoolean sealed = new AtomicBoolean();
+
+    /**
+     * Creates a collector whose producer buffers start at {@link #DEFAULT_STRIPE_CAPACITY} values.
+     */
+    public ConcurrentIntCollector() {
+        this(DEFAULT_STRIPE_CAPACITY);
+    }
+
+    /**
+     * Creates a collector whose producer buffers start at {@code stripeCapacity} values.
+     *
+     * @param stripeCapacity initial capacity of each producer's buffer, e.g. the expected
+     *                       number of values per producer
+     * @throws IllegalArgumentException if stripeCapacity is negative
+     */
+    public ConcurrentIntCollector(int stripeCapacity) {
+        if (stripeCapacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + stripeCapacity);
+        }
+        this.stripeCapacity = stripeCapacity;
+    }
+
+    /**
+     * Registers a new stripe. The returned producer must only be used by one thread at a time.
+     *
+     * @return a producer whose values are included in the sort
+     * @throws IllegalStateException if the collector is already sealed
+     */
+    public Producer newProducer() {
+        checkOpen();
+        Producer producer = new Producer(sealed, stripeCapacity);
+        producers.add(producer);
+        return producer;
+    }
+
+    /**
+     * Adds a value to the calling thread's own stripe.
+     *
+     * @param value the value to add
+     * @throws IllegalStateException if the collector is already sealed
+     */
+    @Override
+    public void accept(int value) {
+        perThread.get().accept(value);
+    }
+
+    /**
+     * Returns the number of values published so far by all producers.
+     *
+     * @return the value count; a lower bound while producers are still adding
+     */
+    public long size() {
+        long total = 0;
+        for (Producer producer : producers) {
+            total += (int) SIZE.getAcquire(producer);
+        }
+        return total;
+    }
+
+    /**
+     * Returns whether {@link #seal()} or a sort has already been called.
+     *
+     * @return true once the collector no longer accepts values
+     */
+    public boolean isSealed() {
+        return sealed.get();
+    }
+
+    /**
+     * Stops accepting values and concatenates every stripe, in producer registration order.
+     *
+     * @return all collected values, unsorted
+     * @throws IllegalStateException if the collector was already sealed
+     * @throws OutOfMemoryError if more values were collected than one int[] can hold
+     */
+    public IntList seal() {
+        if (!sealed.compareAndSet(false, true)) {
+            throw new IllegalStateException("Collector is already sealed");
+        }
+        Producer[] stripes = producers.toArray(new Producer[0]);
+        producers.clear();
+        int[] sizes = new int[stripes.length];
+        int[][] arrays = new int[stripes.length][];
+        long total = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            // Size first, then the array: the array is at least as new as the published size.
+            sizes[i] = (int) SIZE.getAcquire(stripes[i]);
+            arrays[i] = (int[]) VALUES.getAcquire(stripes[i]);
+            total += sizes[i];
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new OutOfMemoryError("Too many values for one int[]: " + total);
+        }
+        int[] all = new int[(int) total];
+        int offset = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            System.arraycopy(arrays[i], 0, all, offset, sizes[i]);
+            offset += sizes[i];
+            // a pooled thread's ThreadLocal (or a caller's handle) may keep the Producer alive
+            // long after this collector; it must not keep the stripe's values too
+            VALUES.setRelease(stripes[i], EMPTY);
+            SIZE.setRelease(stripes[i], 0);
+        }
+        return new IntList(all, offset);
+    }
+
+    /**
+     * Seals the collector and sorts everything collected.
+     *
+     * @param strategy the sorting algorithm for the processing layer
+     * @return the sorted values
+     * @throws IllegalStateException if the collector was already sealed
+     */
+    public IntList sort(SortStrategy strategy) {
+        return seal().sort(strategy);
+    }
+
+    /**
+     * Seals the collector and sorts everything collected, on all cores when there are at least
+     * {@code parallelThreshold} values.
+     *
+     * @param strategy the sequential sorting algorithm for each piece of the parallel sort
+     * @param parallelThreshold inputs with fewer values are sorted sequentially
+     * @return the sorted values
+     * @throws IllegalStateException if the collector was already sealed
+     * @throws IllegalArgumentException if parallelThreshold is not positive
+     */
+    public IntList sort(SortStrategy strategy, int parallelThreshold) {
+        return seal().parallelSort(strategy, parallelThreshold);
+    }
+
+    private void checkOpen() {
+        if (sealed.get()) {
+            throw new IllegalStateException("Collector is already sealed");
+        }
+    }
+
+    /**
+     * One producer's stripe: a growable {@code int[]} written by a single thread without locks.
+     *
+     * <p>A producer only shares the collector's sealed flag, not the collector itself: the
+     * {@link ThreadLocal} behind {@link ConcurrentIntCollector#accept(int)} would otherwise keep
+     * its own key, and so the collector and every stripe, alive for the life of a pooled thread.
+     */
+    public static final class Producer implements IntConsumer {
+        private final AtomicBoolean sealed;
+        private int[] values;
+        private int size;
+
+        private Producer(AtomicBoolean sealed, int capacity) {
+            this.sealed = sealed;
+            this.values = new int[capacity];
+        }
+
+        /**
+         * Appends a value to this stripe.
+         *
+         * @param value the value to add
+         * @throws IllegalStateException if the collector is already sealed
+         */
+        @Override
+        public void accept(int value) {
+            checkOpen();
+            int n = size;
+            if (n == values.length) {
+                grow(n + 1);
+            }
+            values[n] = value;
+            SIZE.setRelease(this, n + 1);
+        }
+
+        /**
+         * Appends {@code source[from, to)} to this stripe with one copy and one publication.
+         *
+         * @param source the values to add
+         * @param from index of the first value to add
+         * @param to index one past the last value to add
+         * @throws IllegalStateException if the collector is already sealed
+         */
+        public void addAll(int[] source, int from, int to) {
+            checkOpen();
+            int n = size;
+            int count = to - from;
+            if (n + count > values.length) {
+                grow(n + count);
+            }
+            System.arraycopy(source, from, values, n, count);
+            SIZE.setRelease(this, n + count);
+        }
+
+        /** Returns the length of the stripe array; 0 once the collector is sealed. */
+        int capacity() {
+            return ((int[]) VALUES.getAcquire(this)).length;
+        }
+
+        private void checkOpen() {
+            if (sealed.get()) {
+                throw new IllegalStateException("Collector is already sealed");
+            }
+        }
+
+        private void grow(int minCapacity) {
+            if (minCapacity < 0 || minCapacity > Integer.MAX_VALUE - 8) {
+                throw new OutOfMemoryError("Required array length too large: " + Integer.toUnsignedString(minCapacity));
+            }
+            long grown = Math.max(16, values.length + (long) (values.length >> 1));
+            int capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(minCapacity, grown));
+            VALUES.setRelease(this, Arrays.copyOf(values, capacity));
+        }
+    }
+}
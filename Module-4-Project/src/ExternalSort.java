@@ -0,0 +1,375 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Disk-spilling STORAGE and PROCESSING LAYERS for inputs larger than the heap.
+ *
+ * <p>Values are accepted one at a time into a primitive run of bounded size. Whenever the run is full it
+ * is sorted with the configured {@link SortStrategy} and spilled to a temporary file as raw 32-bit
+ * ints. {@link #finish(IntConsumer)} then k-way merges the run files with a binary heap of run
+ * cursors and streams the values out in ascending order. If more runs exist than the memory
+ * budget allows read buffers for, runs are merged in several passes. Inputs that fit in a single
+ * run never touch the disk.
+ *
+ * <p>The output sequence is identical to {@link UserInput#processInputToIntArray(String)} for the
+ * same values. Temporary files are deleted by {@link #close()}.
+ *
+ * <pre>
+ *   try (ExternalSort sorter = new ExternalSort(256L &lt;&lt; 20, tempDir, SortStrategy.AUTO)) {
+ *       new StreamingParser(System.in).readLine(sorter);
+ *       sorter.finish(value -&gt; ...);
+ *   }
+ * </pre>
+ */
+public final class ExternalSort implements IntConsumer, Closeable {
+
+    /** Default memory budget: 64 MB. */
+    public static final long DEFAULT_MEMORY_BYTES = 64L << 20;
+
+    /** Size of the read or write buffer kept per open run file. */
+    static final int IO_BUFFER_BYTES = 1 << 16;
+
+    /** Smallest run, whatever the budget. */
+    private static final int MIN_RUN_INTS = 1 << 10;
+
+    private final Path tempDir;
+    private final SortStrategy strategy;
+    private final int runCapacity;
+    private final int fanIn;
+    private final List<Path> runs = new ArrayList<>();
+    private int[] run;
+    private int size;
+    private long count;
+    private boolean finished;
+
+    /**
+     * Creates an external sorter.
+     *
+     * @param memoryBytes approximate heap the sorter may use for runs and merge buffers
+     * @param tempDir directory for run files, or null for the system temporary directory
+     * @param strategy algorithm used to sort each run in memory
+     * @throws IllegalArgumentException if memoryBytes is not positive
+     */
+    public ExternalSort(long memoryBytes, Path tempDir, SortStrategy strategy) {
+        if (memoryBytes <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive: " + memoryBytes);
+        }
+        this.tempDir = tempDir;
+        this.strategy = strategy;
+        // Half the budget for the run itself, half for the scratch space a radix sort may need.
+        long runInts = Math.min(memoryBytes / 8, Integer.MAX_VALUE - 8);
+        this.runCapacity = (int) Math.max(MIN_RUN_INTS, runInts);
+        this.run = new int[MIN_RUN_INTS];
+        this.fanIn = (int) Math.max(2, Math.min(1024, memoryBytes / IO_BUFFER_BYTES - 1));
+    }
+
+    /**
+     * Sorts one line of integers from a stream and passes them to {@code out} in ascending order.
+     *
+     * @param in the stream to read one line from
+     * @param out receives the sorted values
+     * @param memoryBytes approximate heap budget
+     * @param tempDir directory for run files, or null for the system temporary directory
+     * @throws IOException if reading the input or the run files fails
+     * @throws NoSuchElementException if the stream is already at its end
+     * @throws NumberFormatException for the first invalid token
+     */
+    public static void sort(InputStream in, IntConsumer out, long memoryBytes, Path tempDir) throws IOException {
+        try (ExternalSort sorter = new ExternalSort(memoryBytes, tempDir, SortStrategy.AUTO)) {
+            if (!new StreamingParser(in).readLine(sorter)) {
+                throw new NoSuchElementException("No line found");
+            }
+            sorter.finish(out);
+        }
+    }
+
+    /**
+     * Adds a value, spilling the current run to disk when it is full.
+     *
+     * @param value the value to add
+     * @throws UncheckedIOException if the run cannot be written
+     * @throws IllegalStateException if {@link #finish} was already called
+     */
+    @Override
+    public void accept(int value) {
+        if (finished) {
+            throw new IllegalStateException("finish() was already called");
+        }
+        if (size == run.length) {
+            if (run.length < runCapacity) {
+                // Grow towards the full run size so small inputs do not pay for the whole budget.
+                run = Arrays.copyOf(run, (int) Math.min(runCapacity, 2L * run.length));
+            } else {
+                try {
+                    spill();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        run[size++] = value;
+        count++;
+    }
+
+    /**
+     * Returns the number of values added so far.
+     *
+     * @return the value count
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the number of runs written to disk so far.
+     *
+     * @return the spilled run count
+     */
+    public int spilledRuns() {
+        return runs.size();
+    }
+
+    /**
+     * Sorts and merges everything added so far and passes the values to {@code out} in ascending order.
+     *
+     * @param out receives the sorted values
+     * @throws IOException if a run file cannot be written or read
+     * @throws IllegalStateException if called twice
+     */
+    public void finish(IntConsumer out) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("finish() was already called");
+        }
+        finished = true;
+        if (runs.isEmpty()) {
+            strategy.sort(run, 0, size);
+            for (int i = 0; i < size; i++) {
+                out.accept(run[i]);
+            }
+            run = null;
+            return;
+        }
+        if (size > 0) {
+            spill();
+        }
+        run = null; // the merge only needs the per-run I/O buffers
+        while (runs.size() > fanIn) {
+            List<Path> next = new ArrayList<>();
+            try {
+                for (int from = 0; from < runs.size(); from += fanIn) {
+                    List<Path> group = runs.subList(from, Math.min(runs.size(), from + fanIn));
+                    Path merged = newRunFile();
+                    next.add(merged);
+                    try (RunWriter writer = new RunWriter(merged)) {
+                        merge(group, writer);
+                    }
+                }
+            } finally {
+                // Hand every file to close(): merged inputs and outputs alike are now temporary.
+                runs.addAll(next);
+            }
+            for (Path file : runs.subList(0, runs.size() - next.size())) {
+                Files.deleteIfExists(file);
+            }
+            runs.subList(0, runs.size() - next.size()).clear();
+        }
+        merge(runs, out);
+    }
+
+    /**
+     * Deletes all run files.
+     *
+     * @throws IOException if a run file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Path file : runs) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        runs.clear();
+        run = null;
+        finished = true;
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void spill() throws IOException {
+        strategy.sort(run, 0, size);
+        Path file = newRunFile();
+        runs.add(file);
+        try (RunWriter writer = new RunWriter(file)) {
+            writer.write(run, 0, size);
+        }
+        size = 0;
+    }
+
+    private Path newRunFile() throws IOException {
+        return tempDir == null
+                ? Files.createTempFile("userinput-run", ".bin")
+                : Files.createTempFile(tempDir, "userinput-run", ".bin");
+    }
+
+    /** K-way merge with a binary min-heap of run cursors ordered by their current value. */
+    private static void merge(List<Path> files, IntConsumer out) throws IOException {
+        RunReader[] heap = new RunReader[files.size()];
+        int heapSize = 0;
+        try {
+            for (Path file : files) {
+                RunReader reader = new RunReader(file);
+                if (reader.advance()) {
+                    heap[heapSize++] = reader;
+                } else {
+                    reader.close();
+                }
+            }
+            for (int i = (heapSize >>> 1) - 1; i >= 0; i--) {
+                siftDown(heap, heapSize, i);
+            }
+            while (heapSize > 0) {
+                RunReader top = heap[0];
+                out.accept(top.current);
+                if (!top.advance()) {
+                    top.close();
+                    heap[0] = heap[--heapSize];
+                    heap[heapSize] = null;
+                }
+                if (heapSize > 0) {
+                    siftDown(heap, heapSize, 0);
+                }
+            }
+        } finally {
+            for (int i = 0; i < heapSize; i++) {
+                heap[i].close();
+            }
+        }
+    }
+
+    private static void siftDown(RunReader[] heap, int size, int i) {
+        RunReader item = heap[i];
+        int key = item.current;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].current < heap[child].current) {
+                child++;
+            }
+            if (key <= heap[child].current) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = item;
+    }
+
+    /** Buffered writer of raw native-order 32-bit ints; also an IntConsumer for merge passes. */
+    private static final class RunWriter implements IntConsumer, Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES).order(ByteOrder.nativeOrder());
+
+        RunWriter(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void write(int[] values, int from, int to) throws IOException {
+            int i = from;
+            while (i < to) {
+                int n = Math.min(to - i, buffer.remaining() >> 2);
+                if (n == 0) {
+                    flush();
+                    continue;
+                }
+                buffer.asIntBuffer().put(values, i, n);
+                buffer.position(buffer.position() + (n << 2));
+                i += n;
+            }
+        }
+
+        @Override
+        public void accept(int value) {
+            try {
+                if (buffer.remaining() < Integer.BYTES) {
+                    flush();
+                }
+                buffer.putInt(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /** Cursor over a run file, buffered through one direct byte buffer. */
+    private static final class RunReader implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES).order(ByteOrder.nativeOrder());
+        private int current;
+
+        RunReader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer.flip();
+        }
+
+        /** Moves to the next value; false at the end of the run. */
+        boolean advance() throws IOException {
+            if (buffer.remaining() < Integer.BYTES) {
+                buffer.compact();
+                while (buffer.position() < Integer.BYTES) {
+                    if (channel.read(buffer) < 0) {
+                        if (buffer.position() != 0) {
+                            throw new EOFException("Truncated run file");
+                        }
+                        buffer.flip();
+                        return false;
+                    }
+                }
+                buffer.flip();
+            }
+            current = buffer.getInt();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
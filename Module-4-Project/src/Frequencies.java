@@ -0,0 +1,259 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Distinct values and their counts, in ascending value order (PROCESSING LAYER).
+ *
+ * <p>Heavily duplicated inputs such as {@code "1 1 2 2 3 3"} are often wanted as sorted unique
+ * values or as a value-to-count histogram rather than the full sorted list. Two ways of
+ * counting are used, chosen from the cardinality observed while counting:
+ * <ul>
+ *   <li>an open-addressing {@code int -> int} hash map with linear probing (two parallel
+ *       {@code int[]} tables, no boxing) counts every value in one pass; only the distinct keys
+ *       are sorted afterwards. This is the cheap path when there are few distinct values;</li>
+ *   <li>once the map holds more than a quarter as many keys as there are values, hashing is no
+ *       longer cheaper than sorting: counting stops, a copy of the input is sorted with the
+ *       {@link SortStrategy} and equal runs are collapsed in one linear pass.</li>
+ * </ul>
+ *
+ * <pre>
+ *   Frequencies counts = Frequencies.of(values, 0, values.length);
+ *   counts.toString();        // {1=2, 2=2, 3=2}
+ *   counts.values();          // [1, 2, 3], the distinct values
+ * </pre>
+ */
+public final class Frequencies {
+
+    /** Inputs this short are always sorted; the map would not pay for itself. */
+    static final int SMALL_INPUT = 64;
+
+    /** Counting by hash stops once there are more than {@code size / 4} distinct values. */
+    private static final int MAX_DISTINCT_DIVISOR = 4;
+
+    private final int[] values;
+    private final int[] counts;
+
+    private Frequencies(int[] values, int[] counts) {
+        this.values = values;
+        this.counts = counts;
+    }
+
+    /**
+     * Counts the values of {@code values[from, to)} with {@link SortStrategy#AUTO} as the
+     * fallback sort. The array is not modified.
+     *
+     * @param values the array holding the values
+     * @param from index of the first value
+     * @param to index one past the last value
+     * @return the distinct values and their counts
+     */
+    public static Frequencies of(int[] values, int from, int to) {
+        return of(values, from, to, SortStrategy.AUTO);
+    }
+
+    /**
+     * Counts the values of {@code values[from, to)}. The array is not modified.
+     *
+     * @param values the array holding the values
+     * @param from index of the first value
+     * @param to index one past the last value
+     * @param strategy sorts the distinct keys, or the whole copy for high-cardinality input
+     * @return the distinct values and their counts
+     */
+    public static Frequencies of(int[] values, int from, int to, SortStrategy strategy) {
+        Objects.checkFromToIndex(from, to, values.length);
+        int n = to - from;
+        if (n >= SMALL_INPUT) {
+            CountMap map = new CountMap();
+            int maxDistinct = n / MAX_DISTINCT_DIVISOR;
+            int i = from;
+            while (i < to && map.size <= maxDistinct) {
+                map.increment(values[i++]);
+            }
+            if (i == to && map.size <= maxDistinct) {
+                return fromMap(map, strategy);
+            }
+        }
+        int[] sorted = Arrays.copyOfRange(values, from, to);
+        strategy.sort(sorted, 0, n);
+        return fromSorted(sorted, n);
+    }
+
+    /**
+     * Collapses runs of equal values in an already sorted range.
+     *
+     * @param sorted array whose first {@code size} values are in ascending order
+     * @param size number of values
+     * @return the distinct values and their counts
+     */
+    static Frequencies fromSorted(int[] sorted, int size) {
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                distinct++;
+            }
+        }
+        int[] keys = new int[distinct];
+        int[] counts = new int[distinct];
+        int d = -1;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                keys[++d] = sorted[i];
+            }
+            counts[d]++;
+        }
+        return new Frequencies(keys, counts);
+    }
+
+    private static Frequencies fromMap(CountMap map, SortStrategy strategy) {
+        int[] keys = new int[map.size];
+        int k = 0;
+        for (int slot = 0; slot < map.counts.length; slot++) {
+            if (map.counts[slot] != 0) {
+                keys[k++] = map.keys[slot];
+            }
+        }
+        strategy.sort(keys, 0, k);
+        int[] counts = new int[k];
+        for (int i = 0; i < k; i++) {
+            counts[i] = map.get(keys[i]);
+        }
+        return new Frequencies(keys, counts);
+    }
+
+    /**
+     * Returns the number of distinct values.
+     *
+     * @return the distinct count
+     */
+    public int distinctCount() {
+        return values.length;
+    }
+
+    /**
+     * Returns the number of values counted, duplicates included.
+     *
+     * @return the sum of all counts
+     */
+    public int total() {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the distinct values in ascending order.
+     *
+     * @return a new array of {@link #distinctCount()} values
+     */
+    public int[] values() {
+        return values.clone();
+    }
+
+    /**
+     * Returns the counts, parallel to {@link #values()}.
+     *
+     * @return a new array of {@link #distinctCount()} counts
+     */
+    public int[] counts() {
+        return counts.clone();
+    }
+
+    /**
+     * Returns how often {@code value} occurred.
+     *
+     * @param value the value to look up
+     * @return its count, 0 if it did not occur
+     */
+    public int countOf(int value) {
+        int i = Arrays.binarySearch(values, value);
+        return i < 0 ? 0 : counts[i];
+    }
+
+    /**
+     * Writes the histogram as {@code {a=2, b=1}} without building a {@code String}.
+     *
+     * @param out the writer
+     * @throws IOException if the underlying stream fails
+     */
+    public void writeTo(IntListWriter out) throws IOException {
+        out.writeCounts(values, counts, 0, values.length);
+    }
+
+    /**
+     * Returns the histogram in the {@code {a=2, b=1}} format of a sorted {@code Map<Integer, Integer>}.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("{");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(values[i]).append('=').append(counts[i]);
+        }
+        return text.append('}').toString();
+    }
+
+    /** Open-addressing int-to-count map; a slot is free while its count is 0. */
+    private static final class CountMap {
+        private int[] keys = new int[64];
+        private int[] counts = new int[64];
+        private int shift = 32 - 6;
+        private int size;
+
+        void increment(int key) {
+            int mask = keys.length - 1;
+            int slot = hash(key);
+            while (counts[slot] != 0) {
+                if (keys[slot] == key) {
+                    counts[slot]++;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            counts[slot] = 1;
+            if (++size * 2 > keys.length) {
+                rehash();
+            }
+        }
+
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key); counts[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return counts[slot];
+                }
+            }
+            return 0;
+        }
+
+        /** Fibonacci hashing: the top bits of {@code key * 2^32 / phi} index the table. */
+        private int hash(int key) {
+            return (key * 0x9E3779B9) >>> shift;
+        }
+
+        private void rehash() {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = new int[oldKeys.length << 1];
+            counts = new int[oldKeys.length << 1];
+            shift--;
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldCounts[i] != 0) {
+                    int slot = hash(oldKeys[i]);
+                    while (counts[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of tokenizing an input line once for validation, counting and sorting together.
+ *
+ * <p>Callers that ran {@link UserInput#isValidInput(String)}, {@link UserInput#countIntegers(String)}
+ * and {@link UserInput#processInput(String)} on the same line tokenized it three times.
+ * {@link UserInput#analyzeInput(String)} walks the line once with {@link IntTokenizer}, keeping
+ * the parsed values, and answers all three questions from that pass. The values are only sorted
+ * when {@link #sortedValues()} or {@link #sortedList()} is first called, so a caller that only
+ * wants the count or validity never pays for the sort.
+ *
+ * <p>Each accessor gives exactly the answer of the method it replaces:
+ * <ul>
+ *   <li>{@link #isValid()} and {@link #count()} follow isValidInput and countIntegers, which
+ *       trim whitespace around each token.</li>
+ *   <li>{@link #firstInvalidPosition()} and the sorted values follow processInput, which does
+ *       not; the sorted accessors throw the same {@link NumberFormatException}.</li>
+ * </ul>
+ * For a null line the analysis is invalid with a count of 0, and the sorted accessors throw a
+ * {@link NullPointerException} like processInput does.
+ */
+public final class InputAnalysis {
+
+    private final boolean valid;
+    private final int count;
+    private final int firstInvalidPosition;
+    private final String invalidToken;
+    private final SortStrategy strategy;
+    private IntList values;
+    private int[] sorted;
+    private SortPath sortPath;
+
+    private InputAnalysis(boolean valid, int count, int firstInvalidPosition, String invalidToken,
+            IntList values, SortStrategy strategy) {
+        this.valid = valid;
+        this.count = count;
+        this.firstInvalidPosition = firstInvalidPosition;
+        this.invalidToken = invalidToken;
+        this.values = values;
+        this.strategy = strategy;
+    }
+
+    /**
+     * Tokenizes the input once and records validity, count, the first invalid token and the values.
+     *
+     * @param input integers separated by spaces or commas; may be null
+     * @param strategy the sorting algorithm used when the sorted values are first requested
+     * @return the analysis
+     */
+    public static InputAnalysis analyze(CharSequence input, SortStrategy strategy) {
+        if (input == null) {
+            return new InputAnalysis(false, 0, -1, null, null, strategy);
+        }
+        IntTokenizer tokens = new IntTokenizer(input, false);
+        IntList values = new IntList(IntTokenizer.countTokens(input, 0, input.length()));
+        boolean valid = !IntTokenizer.isBlank(input);
+        int count = 0;
+        int firstInvalid = -1;
+        String invalidToken = null;
+        int state;
+        while ((state = tokens.next()) != IntTokenizer.END) {
+            if (state == IntTokenizer.INT) {
+                count++;
+                if (values != null) {
+                    values.add(tokens.value());
+                }
+                continue;
+            }
+            int start = tokens.tokenStart();
+            int end = tokens.tokenEnd();
+            if (firstInvalid < 0) {
+                firstInvalid = start;
+                invalidToken = input.subSequence(start, end).toString();
+                values = null; // processInput fails here, the values are no longer needed
+            }
+            // Rare slow path: the validation methods trim the token first (e.g. "\t5" counts).
+            if (new IntTokenizer(input, start, end, true).next() == IntTokenizer.INT) {
+                count++;
+            } else {
+                valid = false;
+            }
+        }
+        return new InputAnalysis(valid, count, firstInvalid, invalidToken, values, strategy);
+    }
+
+    /**
+     * Returns what {@link UserInput#isValidInput(String)} returns for the line.
+     *
+     * @return true if the line is not blank and every token is a valid integer
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Returns what {@link UserInput#countIntegers(String)} returns for the line.
+     *
+     * @return number of valid integers in the line
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the index of the first token {@link UserInput#processInput(String)} rejects.
+     *
+     * @return character offset of the first invalid token, or -1 if the line can be processed
+     */
+    public int firstInvalidPosition() {
+        return firstInvalidPosition;
+    }
+
+    /**
+     * Returns the sorted integers, sorting them on the first call.
+     *
+     * @return a new sorted array owned by the caller
+     * @throws NumberFormatException for the first invalid token, like processInput
+     * @throws NullPointerException if the analysed line was null
+     */
+    public int[] sortedValues() {
+        return sorted().clone();
+    }
+
+    /**
+     * Returns the sorted integers as a read-only list, sorting them on the first call.
+     *
+     * @return sorted list of integers
+     * @throws NumberFormatException for the first invalid token, like processInput
+     * @throws NullPointerException if the analysed line was null
+     */
+    public List<Integer> sortedList() {
+        int[] values = sorted();
+        return Collections.unmodifiableList(new IntList(values, values.length).asList());
+    }
+
+    /**
+     * Returns how the values were ordered, sorting them on the first call: already sorted,
+     * reversed, merged from a few sorted runs, or fully sorted (see {@link SortPath}).
+     *
+     * @return the path the sort took
+     * @throws NumberFormatException for the first invalid token, like processInput
+     * @throws NullPointerException if the analysed line was null
+     */
+    public synchronized SortPath sortPath() {
+        sorted();
+        return sortPath;
+    }
+
+    private synchronized int[] sorted() {
+        if (sorted == null) {
+            if (invalidToken != null) {
+                throw new NumberFormatException("For input string: \"" + invalidToken + "\"");
+            }
+            if (values == null) {
+                throw new NullPointerException("input");
+            }
+            sortPath = strategy.sort(values.array(), 0, values.size());
+            // The pre-scan usually sizes the buffer exactly, so no copy is needed
+            sorted = values.size() == values.array().length ? values.array() : values.toArray();
+            values = null;
+        }
+        return sorted;
+    }
+}
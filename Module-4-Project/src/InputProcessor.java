@@ -0,0 +1,258 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * Reusable session object for running the pipeline over many input lines (batch API).
+ *
+ * <p>Each call of {@link UserInput#processInput(String)} used to start from nothing: a new
+ * parse buffer that grows from 16 values, and for radix or counting sorts a new scratch array
+ * per call. An {@code InputProcessor} keeps its PARSING/STORAGE buffer ({@link IntList}) and
+ * its PROCESSING scratch space ({@link SortStrategy.Buffers}) between lines, so once they have
+ * grown to the working size a line costs no allocation beyond its result. With
+ * {@link #process(CharSequence, IntConsumer)} or {@link #processAll(Iterable, ResultSink)} not
+ * even the result is allocated.
+ *
+ * <p>Results are identical to {@link UserInput#processInput(String)}, including the
+ * {@link NumberFormatException} for the first invalid token. After a very long line the buffers
+ * are released again, also when the line is rejected or the consumer throws, so a long-lived
+ * processor does not pin its peak memory.
+ *
+ * <p>A processor is not thread-safe; use one per thread. The static {@link UserInput} methods
+ * share one processor per thread.
+ *
+ * <pre>
+ *   InputProcessor processor = new InputProcessor();
+ *   processor.processAll(lines, (sorted, size) -&gt; store(sorted, size));
+ * </pre>
+ */
+public final class InputProcessor {
+
+    /**
+     * Receives the sorted values of one line. The array is the processor's own buffer: it is
+     * only valid during the call and must be copied to be kept.
+     */
+    @FunctionalInterface
+    public interface ResultSink {
+
+        /**
+         * Accepts the sorted values of one line.
+         *
+         * @param sorted array whose first {@code size} entries are the sorted values
+         * @param size number of values in the line
+         */
+        void accept(int[] sorted, int size);
+    }
+
+    /** Buffers larger than this many ints (4 MB) are dropped after use. */
+    static final int MAX_RETAINED_INTS = 1 << 20;
+
+    private static final ThreadLocal<InputProcessor> PER_THREAD = ThreadLocal.withInitial(InputProcessor::new);
+
+    private final SortStrategy strategy;
+    private final int expectedValues;
+    private IntList values;
+    private SortStrategy.Buffers buffers = new SortStrategy.Buffers();
+    private SortPath lastSortPath;
+
+    /**
+     * Creates a processor that sorts with {@link SortStrategy#AUTO}.
+     */
+    public InputProcessor() {
+        this(SortStrategy.AUTO);
+    }
+
+    /**
+     * Creates a processor that sorts with the given algorithm.
+     *
+     * @param strategy the sorting algorithm for the processing layer
+     * @throws NullPointerException if strategy is null
+     */
+    public InputProcessor(SortStrategy strategy) {
+        this(strategy, 0);
+    }
+
+    /**
+     * Creates a processor whose parse buffer starts with room for {@code expectedValues}
+     * integers, for callers that know their typical line size. Buffers up to that size are
+     * kept between lines.
+     *
+     * @param strategy the sorting algorithm for the processing layer
+     * @param expectedValues capacity hint for the parse buffer
+     * @throws NullPointerException if strategy is null
+     * @throws IllegalArgumentException if expectedValues is negative
+     */
+    public InputProcessor(SortStrategy strategy, int expectedValues) {
+        if (expectedValues < 0) {
+            throw new IllegalArgumentException("Negative capacity hint: " + expectedValues);
+        }
+        this.strategy = Objects.requireNonNull(strategy, "strategy");
+        this.expectedValues = expectedValues;
+        this.values = new IntList(expectedValues);
+    }
+
+    /**
+     * Returns the processor shared by the static {@link UserInput} methods on the current thread.
+     */
+    static InputProcessor forCurrentThread() {
+        return PER_THREAD.get();
+    }
+
+    /**
+     * Parses and sorts one line, like {@link UserInput#processInput(String)}.
+     *
+     * @param line integers separated by spaces or commas
+     * @return sorted list of integers, owned by the caller
+     * @throws NumberFormatException if the line contains non-numeric values
+     */
+    public List<Integer> process(CharSequence line) {
+        return process(line, strategy);
+    }
+
+    /**
+     * Parses and sorts one line, like {@link UserInput#processInputToIntArray(String)}.
+     *
+     * @param line integers separated by spaces or commas
+     * @return sorted array of integers, owned by the caller
+     * @throws NumberFormatException if the line contains non-numeric values
+     */
+    public int[] processToIntArray(CharSequence line) {
+        return processToIntArray(line, strategy);
+    }
+
+    /**
+     * Parses and sorts one line and passes the values to {@code out} in ascending order,
+     * without allocating a result.
+     *
+     * @param line integers separated by spaces or commas
+     * @param out receives the sorted values, e.g. an {@link IntListWriter}
+     * @return the number of values in the line
+     * @throws NumberFormatException if the line contains non-numeric values
+     */
+    public int process(CharSequence line, IntConsumer out) {
+        try {
+            IntList sorted = sortLine(line, strategy);
+            int[] array = sorted.array();
+            int size = sorted.size();
+            for (int i = 0; i < size; i++) {
+                out.accept(array[i]);
+            }
+            return size;
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Parses and sorts one line and hands the sorted values to {@code sink} in the shared
+     * buffer. Nothing reaches the sink when the line is rejected.
+     *
+     * @param line integers separated by spaces or commas
+     * @param sink receives the sorted values
+     * @return the number of values in the line
+     * @throws NumberFormatException if the line contains non-numeric values
+     */
+    public int process(CharSequence line, ResultSink sink) {
+        try {
+            IntList sorted = sortLine(line, strategy);
+            sink.accept(sorted.array(), sorted.size());
+            return sorted.size();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Parses and sorts every line in order, handing each result to {@code sink} in the shared buffer.
+     *
+     * @param lines the input lines, e.g. a {@code List<String>} or {@code stream::iterator}
+     * @param sink receives the sorted values of each line
+     * @throws NumberFormatException at the first line with a non-numeric value; earlier lines
+     *         have already been passed to the sink
+     */
+    public void processAll(Iterable<? extends CharSequence> lines, ResultSink sink) {
+        try {
+            for (CharSequence line : lines) {
+                IntList sorted = sortLine(line, strategy);
+                sink.accept(sorted.array(), sorted.size());
+            }
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Parses and sorts every line in order.
+     *
+     * @param lines the input lines
+     * @return one sorted array per line, in line order
+     * @throws NumberFormatException at the first line with a non-numeric value
+     */
+    public List<int[]> processAllToIntArrays(Iterable<? extends CharSequence> lines) {
+        List<int[]> results = new ArrayList<>();
+        for (CharSequence line : lines) {
+            results.add(processToIntArray(line, strategy));
+        }
+        return results;
+    }
+
+    /**
+     * Returns how the most recent line was ordered, e.g. {@link SortPath#ALREADY_SORTED} when it
+     * arrived in ascending order and no sort was needed.
+     *
+     * @return the path of the last processed line, or null before the first line
+     */
+    public SortPath lastSortPath() {
+        return lastSortPath;
+    }
+
+    List<Integer> process(CharSequence line, SortStrategy sortStrategy) {
+        int[] sorted = processToIntArray(line, sortStrategy);
+        return new IntList(sorted, sorted.length).asList();
+    }
+
+    int[] processToIntArray(CharSequence line, SortStrategy sortStrategy) {
+        try {
+            IntList sorted = sortLine(line, sortStrategy);
+            return Arrays.copyOf(sorted.array(), sorted.size());
+        } finally {
+            release();
+        }
+    }
+
+    /** Parses and sorts into the shared buffer, which stays valid until the next call. */
+    private IntList sortLine(CharSequence line, SortStrategy sortStrategy) {
+        IntList buffer = values;
+        buffer.clear();
+        int length = line.length();
+        if ((length + 1) / 2 > buffer.array().length) {
+            // the line might not fit (a token takes at least 2 chars with its delimiter): size the
+            // buffer once from a delimiter pre-scan instead of growing it copy by copy, as for
+            // lines longer than any buffer release() keeps
+            buffer.ensureCapacity(IntTokenizer.countTokens(line, 0, length));
+        }
+        // PARSING LAYER into the reused STORAGE LAYER buffer
+        IntTokenizer.parseInto(line, 0, length, buffer);
+        // PROCESSING LAYER with reused radix/counting scratch space
+        lastSortPath = sortStrategy.sort(buffer.array(), 0, buffer.size(), buffers);
+        return buffer;
+    }
+
+    /** Returns the larger of the parse buffer and sort scratch capacities, in ints. */
+    int retainedCapacity() {
+        return Math.max(values.array().length, buffers.capacity());
+    }
+
+    /** Drops buffers that a very long line has grown beyond {@link #MAX_RETAINED_INTS} and the hint. */
+    private void release() {
+        int retained = Math.max(MAX_RETAINED_INTS, expectedValues);
+        if (values.array().length > retained) {
+            values = new IntList(expectedValues);
+        }
+        if (buffers.capacity() > retained) {
+            buffers = new SortStrategy.Buffers();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Inner loops of the PARSING and PROCESSING layers that can use SIMD instructions.
+ *
+ * <p>This class holds the portable scalar versions. When the {@code jdk.incubator.vector}
+ * module is present, {@code VectorIntKernels} (built from {@code src-vector/} by
+ * {@code build.sh} with {@code --add-modules jdk.incubator.vector}) overrides them with Vector
+ * API code that uses the widest vectors of the CPU, e.g. 16 ints per AVX-512 register:
+ * <ul>
+ *   <li>{@link #minMax} - the min/max pre-pass of {@link SortStrategy};</li>
+ *   <li>{@link #sortSmall} - a bitonic sorting network within one register (8 or 16 ints): the
+ *       base case of the {@link PartialSort#select} recursion, and in {@link SortStrategy} a
+ *       shortcut for whole inputs that fit in one register (it does not split larger ones);</li>
+ *   <li>{@link #countTokens} - delimiter classification of mapped file bytes for the token
+ *       pre-scan of each {@link MappedFileParser} window, 64 bytes per step.</li>
+ * </ul>
+ *
+ * <p>The implementation is chosen once, like the virtual-thread executor of {@link SortServer}:
+ * the vector class is only loaded if it was compiled and the JVM runs with
+ * {@code --add-modules jdk.incubator.vector}. Otherwise, or with
+ * {@code -Duserinput.vector=false}, these scalar loops are used. Both give identical results.
+ */
+class IntKernels {
+
+    /** The kernels used by this JVM. */
+    static final IntKernels INSTANCE = load();
+
+    /**
+     * Returns the smallest and largest value of {@code values[from, to)}, packed as
+     * {@code (long) min << 32 | (max & 0xFFFFFFFFL)}.
+     *
+     * @param values the array to scan
+     * @param from index of the first value; the range must not be empty
+     * @param to index one past the last value
+     * @return min in the upper and max in the lower 32 bits
+     */
+    long minMax(int[] values, int from, int to) {
+        int min = values[from];
+        int max = min;
+        for (int i = from + 1; i < to; i++) {
+            int v = values[i];
+            if (v < min) {
+                min = v;
+            } else if (v > max) {
+                max = v;
+            }
+        }
+        return pack(min, max);
+    }
+
+    /**
+     * Sorts {@code values[from, to)} if the range fits in one vector register; the scalar
+     * version sorts nothing.
+     *
+     * @param values the array to sort
+     * @param from index of the first value
+     * @param to index one past the last value
+     * @return true if the range was sorted, false if the caller has to sort it
+     */
+    boolean sortSmall(int[] values, int from, int to) {
+        return false;
+    }
+
+    /**
+     * Counts the tokens of {@code bytes[from, to)} (absolute indexes), where spaces, commas and
+     * line breaks are delimiters, like {@link IntTokenizer#countTokens} over the characters.
+     *
+     * @param bytes ASCII text, e.g. a mapped file
+     * @param from index of the first byte
+     * @param to index one past the last byte
+     * @return the number of tokens
+     */
+    int countTokens(ByteBuffer bytes, int from, int to) {
+        int count = 0;
+        int previousDelimiter = 1;
+        for (int i = from; i < to; i++) {
+            int delimiter = isDelimiter(bytes.get(i)) ? 1 : 0;
+            count += previousDelimiter & (delimiter ^ 1);
+            previousDelimiter = delimiter;
+        }
+        return count;
+    }
+
+    /**
+     * Returns a short description for diagnostics.
+     *
+     * @return e.g. {@code "scalar"} or {@code "vector (16 x int)"}
+     */
+    String describe() {
+        return "scalar";
+    }
+
+    static long pack(int min, int max) {
+        return (long) min << 32 | (max & 0xFFFFFFFFL);
+    }
+
+    static boolean isDelimiter(byte b) {
+        return b == ' ' || b == ',' || b == '\n' || b == '\r';
+    }
+
+    private static IntKernels load() {
+        if (!Boolean.parseBoolean(System.getProperty("userinput.vector", "true"))) {
+            return new IntKernels();
+        }
+        try {
+            return (IntKernels) Class.forName("VectorIntKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            // not compiled, or jdk.incubator.vector was not added to this JVM
+            return new IntKernels();
+        }
+    }
+}
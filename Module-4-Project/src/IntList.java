@@ -0,0 +1,252 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+/**
+ * Growable primitive {@code int[]} buffer for the STORAGE LAYER of the pipeline.
+ *
+ * <p>Replaces {@code LinkedList<Integer>}: values are stored unboxed in one contiguous
+ * array (4 bytes per element instead of a node plus an {@code Integer}, roughly 40 bytes),
+ * and sorting runs a {@link SortStrategy} (dual-pivot quicksort, radix or counting sort) directly
+ * on the primitives rather than copying boxed values to an {@code Object[]} for TimSort.
+ *
+ * <p>{@link #asList()} exposes the buffer as a {@code List<Integer>} view so existing
+ * callers of the list-based API keep working without a second copy. As an {@link IntConsumer}
+ * it can be handed to producers such as {@link StreamingParser} that push values one at a time.
+ */
+public final class IntList implements IntConsumer {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** Largest array size the VM reliably allows. */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private int[] values;
+    private int size;
+
+    /**
+     * Creates an empty buffer with a small default capacity.
+     */
+    public IntList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty buffer able to hold {@code capacity} values before growing.
+     *
+     * @param capacity initial capacity
+     * @throws IllegalArgumentException if capacity is negative
+     */
+    public IntList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        }
+        values = new int[capacity];
+    }
+
+    /**
+     * Wraps an existing array whose first {@code size} entries are the values.
+     *
+     * @param values backing array, used without copying
+     * @param size number of meaningful entries
+     */
+    IntList(int[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Appends a value, growing the backing array by half its size when full.
+     *
+     * @param value the value to append
+     */
+    public void add(int value) {
+        if (size == values.length) {
+            grow(size + 1);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Appends a value; same as {@link #add(int)}.
+     *
+     * @param value the value to append
+     */
+    @Override
+    public void accept(int value) {
+        add(value);
+    }
+
+    /**
+     * Makes room for at least {@code minCapacity} values with a single exact-size copy, e.g.
+     * from a caller's capacity hint or an {@link IntTokenizer#countTokens} pre-scan.
+     *
+     * @param minCapacity number of values the buffer should hold without growing
+     * @throws OutOfMemoryError if minCapacity exceeds the largest supported array
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > values.length) {
+            if (minCapacity > MAX_CAPACITY) {
+                throw new OutOfMemoryError("Required array length too large: " + minCapacity);
+            }
+            values = Arrays.copyOf(values, minCapacity);
+        }
+    }
+
+    /**
+     * Appends every value of another buffer.
+     *
+     * @param other the values to append
+     */
+    public void addAll(IntList other) {
+        int n = other.size;
+        if (size + n > values.length) {
+            grow(size + n);
+        }
+        System.arraycopy(other.values, 0, values, size, n);
+        size += n;
+    }
+
+    /**
+     * Returns the value at {@code index}.
+     *
+     * @param index position of the value
+     * @return the stored value
+     * @throws IndexOutOfBoundsException if index is outside {@code [0, size)}
+     */
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return values[index];
+    }
+
+    /**
+     * Replaces the value at {@code index}.
+     *
+     * @param index position of the value
+     * @param value the new value
+     * @return the previous value
+     * @throws IndexOutOfBoundsException if index is outside {@code [0, size)}
+     */
+    public int set(int index, int value) {
+        int old = get(index);
+        values[index] = value;
+        return old;
+    }
+
+    /**
+     * Returns the number of stored values.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all values but keeps the backing array for reuse.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Sorts the stored values in ascending order with {@link SortStrategy#AUTO}.
+     *
+     * @return this buffer
+     */
+    public IntList sort() {
+        return sort(SortStrategy.AUTO);
+    }
+
+    /**
+     * Sorts the stored values in ascending order with the given strategy.
+     *
+     * @param strategy the sorting algorithm to use
+     * @return this buffer
+     */
+    public IntList sort(SortStrategy strategy) {
+        strategy.sort(values, 0, size);
+        return this;
+    }
+
+    /**
+     * Sorts the stored values in ascending order on the fork-join common pool.
+     *
+     * @param strategy the sequential algorithm for each piece of the sort
+     * @param threshold buffers smaller than this are sorted sequentially
+     * @return this buffer
+     * @see ParallelSort#sort(int[], int, int, SortStrategy, int)
+     */
+    public IntList parallelSort(SortStrategy strategy, int threshold) {
+        ParallelSort.sort(values, 0, size, strategy, threshold);
+        return this;
+    }
+
+    /**
+     * Returns the backing array; only the first {@link #size()} entries are meaningful.
+     *
+     * @return the backing array (not a copy)
+     */
+    public int[] array() {
+        return values;
+    }
+
+    /**
+     * Returns the stored values as an exactly-sized array.
+     *
+     * @return a new array, or the backing array itself when it is already exactly full
+     */
+    public int[] toArray() {
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Returns a {@code List<Integer>} view backed by this buffer. Reads and {@code set} write
+     * through; values are boxed only when they are read.
+     *
+     * @return a fixed-size list view
+     */
+    public List<Integer> asList() {
+        return new ListView();
+    }
+
+    @Override
+    public String toString() {
+        return asList().toString();
+    }
+
+    private void grow(int minCapacity) {
+        int old = values.length;
+        if (minCapacity > MAX_CAPACITY) {
+            throw new OutOfMemoryError("Required array length too large: " + minCapacity);
+        }
+        int capacity = old + (old >> 1);
+        if (capacity < minCapacity || capacity > MAX_CAPACITY) {
+            capacity = Math.max(minCapacity, Math.min(capacity, MAX_CAPACITY));
+        }
+        values = Arrays.copyOf(values, Math.max(capacity, DEFAULT_CAPACITY));
+    }
+
+    /** Read/set view over the buffer, in the style of {@code Arrays.asList}. */
+    private final class ListView extends AbstractList<Integer> implements RandomAccess {
+
+        @Override
+        public Integer get(int index) {
+            return IntList.this.get(index);
+        }
+
+        @Override
+        public Integer set(int index, Integer element) {
+            return IntList.this.set(index, element);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.function.IntConsumer;
+
+/**
+ * Buffered OUTPUT LAYER: prints integer lists in the {@code [a, b, c]} format of
+ * {@link java.util.AbstractCollection#toString()} without building a {@code String}.
+ *
+ * <p>{@code System.out.println("User Entered: " + list)} boxes every value, appends each one to
+ * a {@code StringBuilder}, copies the result once more for the concatenation and then encodes it
+ * again inside the {@code PrintStream}. For millions of values that is several times the size
+ * of the output in temporary heap. This writer formats the digits of each {@code int} straight
+ * into one reusable byte buffer and hands full buffers to the underlying stream in large blocks
+ * (use {@link java.nio.channels.Channels#newOutputStream} to target a {@code FileChannel}).
+ *
+ * <p>Digits, signs, brackets and separators are ASCII, which every default charset used by
+ * {@code System.out} encodes the same way; other text passed to {@link #write(String)} is
+ * encoded with the default charset unless another one is given. The underlying stream is
+ * flushed by {@link #flush()} but never closed.
+ *
+ * <pre>
+ *   IntListWriter out = new IntListWriter(System.out);
+ *   out.write("User Entered: ");
+ *   out.writeList(values);
+ *   out.newLine();
+ *   out.flush();
+ * </pre>
+ */
+public final class IntListWriter implements IntConsumer, Flushable {
+
+    /** Default output buffer size in bytes. */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    /** Room for ", " plus the longest int, "-2147483648". */
+    private static final int MAX_ELEMENT_BYTES = 13;
+
+    /** Room for ", " plus the longest long, "-9223372036854775808". */
+    private static final int MAX_LONG_ELEMENT_BYTES = 22;
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private final Charset charset;
+    private int pos;
+    private long written;
+    private boolean firstElement = true;
+
+    /**
+     * Creates a writer with a {@link #DEFAULT_BUFFER_SIZE} byte buffer.
+     *
+     * @param out the stream to write to; flushed but not closed by this writer
+     */
+    public IntListWriter(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a writer with a buffer of the given size.
+     *
+     * @param out the stream to write to; flushed but not closed by this writer
+     * @param bufferSize output buffer size in bytes
+     * @throws IllegalArgumentException if bufferSize is smaller than 16
+     */
+    public IntListWriter(OutputStream out, int bufferSize) {
+        this(out, bufferSize, Charset.defaultCharset());
+    }
+
+    /**
+     * Creates a writer with a buffer of the given size whose text is encoded with {@code charset},
+     * e.g. UTF-8 for a network protocol. The charset must encode ASCII as single bytes.
+     *
+     * @param out the stream to write to; flushed but not closed by this writer
+     * @param bufferSize output buffer size in bytes
+     * @param charset encoding for {@link #write(String)}
+     * @throws IllegalArgumentException if bufferSize is smaller than 16
+     */
+    public IntListWriter(OutputStream out, int bufferSize, Charset charset) {
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("Buffer size must be at least 16: " + bufferSize);
+        }
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+        this.charset = charset;
+    }
+
+    /**
+     * Writes plain text, e.g. the {@code "User Entered: "} label.
+     *
+     * @param text the text to write in the writer's charset (by default the platform charset)
+     * @throws IOException if the underlying stream fails
+     */
+    public void write(String text) throws IOException {
+        byte[] bytes = text.getBytes(charset);
+        if (bytes.length > buffer.length - pos) {
+            drain();
+            if (bytes.length > buffer.length) {
+                out.write(bytes);
+                written += bytes.length;
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, pos, bytes.length);
+        pos += bytes.length;
+    }
+
+    /**
+     * Writes the platform line separator, as {@code println} does.
+     *
+     * @throws IOException if the underlying stream fails
+     */
+    public void newLine() throws IOException {
+        write(System.lineSeparator());
+    }
+
+    /**
+     * Writes {@code values[from, to)} as {@code [a, b, c]}.
+     *
+     * @param values the array holding the values
+     * @param from index of the first value to write
+     * @param to index one past the last value to write
+     * @throws IOException if the underlying stream fails
+     */
+    public void writeList(int[] values, int from, int to) throws IOException {
+        beginList();
+        for (int i = from; i < to; i++) {
+            writeElement(values[i]);
+        }
+        endList();
+    }
+
+    /**
+     * Writes {@code values[from, to)} as {@code [a, b, c]}, for {@link NumberWidth#LONG} input.
+     *
+     * @param values the array holding the values
+     * @param from index of the first value to write
+     * @param to index one past the last value to write
+     * @throws IOException if the underlying stream fails
+     */
+    public void writeList(long[] values, int from, int to) throws IOException {
+        beginList();
+        for (int i = from; i < to; i++) {
+            long value = values[i];
+            if (value == (int) value) {
+                writeElement((int) value);
+            } else {
+                writeLongElement(value);
+            }
+        }
+        endList();
+    }
+
+    /**
+     * Writes every value of the buffer as {@code [a, b, c]}.
+     *
+     * @param values the values to write
+     * @throws IOException if the underlying stream fails
+     */
+    public void writeList(IntList values) throws IOException {
+        writeList(values.array(), 0, values.size());
+    }
+
+    /**
+     * Writes {@code values[i]=counts[i]} pairs for {@code i} in {@code [from, to)} as
+     * {@code {a=2, b=1}}, the format of a sorted {@code Map<Integer, Integer>}.
+     *
+     * @param values the keys
+     * @param counts the count of each key, parallel to values
+     * @param from index of the first pair to write
+     * @param to index one past the last pair to write
+     * @throws IOException if the underlying stream fails
+     */
+    public void writeCounts(int[] values, int[] counts, int from, int to) throws IOException {
+        ensure(1);
+        buffer[pos++] = '{';
+        firstElement = true;
+        for (int i = from; i < to; i++) {
+            writeElement(values[i]);
+            ensure(MAX_ELEMENT_BYTES);
+            buffer[pos++] = '=';
+            pos = formatInt(counts[i], buffer, pos);
+        }
+        ensure(1);
+        buffer[pos++] = '}';
+    }
+
+    /**
+     * Opens a list written element by element through {@link #accept(int)}, for producers that
+     * stream their values (such as {@link ExternalSort#finish(IntConsumer)}).
+     *
+     * @throws IOException if the underlying stream fails
+     */
+    public void beginList() throws IOException {
+        ensure(1);
+        buffer[pos++] = '[';
+        firstElement = true;
+    }
+
+    /**
+     * Writes one element of the list opened by {@link #beginList()}.
+     *
+     * @param value the value to write
+     * @throws UncheckedIOException if the underlying stream fails
+     */
+    @Override
+    public void accept(int value) {
+        try {
+            writeElement(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Closes the list opened by {@link #beginList()}.
+     *
+     * @throws IOException if the underlying stream fails
+     */
+    public void endList() throws IOException {
+        ensure(1);
+        buffer[pos++] = ']';
+    }
+
+    /**
+     * Writes the buffered bytes and flushes the underlying stream.
+     *
+     * @throws IOException if the underlying stream fails
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    /**
+     * Returns the number of bytes written so far, including those still buffered.
+     *
+     * @return the output size in bytes
+     */
+    public long bytesWritten() {
+        return written + pos;
+    }
+
+    private void writeElement(int value) throws IOException {
+        ensure(MAX_ELEMENT_BYTES);
+        final byte[] b = buffer;
+        int p = pos;
+        if (firstElement) {
+            firstElement = false;
+        } else {
+            b[p++] = ',';
+            b[p++] = ' ';
+        }
+        pos = formatInt(value, b, p);
+    }
+
+    /** Formats {@code value} in decimal at {@code b[p]} and returns the index after it. */
+    private static int formatInt(int value, byte[] b, int p) {
+        // Work on the negative value so Integer.MIN_VALUE needs no special case.
+        int q = value;
+        if (value < 0) {
+            b[p++] = '-';
+        } else {
+            q = -value;
+        }
+        int end = p + digits(q);
+        int i = end;
+        do {
+            int r = q / 10;
+            b[--i] = (byte) ('0' + r * 10 - q);
+            q = r;
+        } while (q != 0);
+        return end;
+    }
+
+    private void writeLongElement(long value) throws IOException {
+        // a buffer below MAX_LONG_ELEMENT_BYTES cannot take the element in one piece
+        boolean direct = buffer.length >= MAX_LONG_ELEMENT_BYTES;
+        if (direct) {
+            ensure(MAX_LONG_ELEMENT_BYTES);
+        }
+        byte[] b = direct ? buffer : new byte[MAX_LONG_ELEMENT_BYTES];
+        int p = direct ? pos : 0;
+        if (firstElement) {
+            firstElement = false;
+        } else {
+            b[p++] = ',';
+            b[p++] = ' ';
+        }
+        p = formatLong(value, b, p);
+        if (direct) {
+            pos = p;
+        } else {
+            drain();
+            out.write(b, 0, p);
+            written += p;
+        }
+    }
+
+    /** Formats a value outside the int range in decimal at {@code b[p]} and returns the index after it. */
+    private static int formatLong(long value, byte[] b, int p) {
+        long q = value;
+        if (value < 0) {
+            b[p++] = '-';
+        } else {
+            q = -value;
+        }
+        int digits = 1;
+        for (long bound = -10; digits < 19 && q <= bound; bound *= 10) {
+            digits++;
+        }
+        int end = p + digits;
+        int i = end;
+        do {
+            long r = q / 10;
+            b[--i] = (byte) ('0' + r * 10 - q);
+            q = r;
+        } while (q != 0);
+        return end;
+    }
+
+    /** Number of decimal digits in a non-positive int. */
+    private static int digits(int negative) {
+        int digits = 1;
+        for (int bound = -10; digits < 10 && negative <= bound; bound *= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.length - pos < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (pos > 0) {
+            out.write(buffer, 0, pos);
+            written += pos;
+            pos = 0;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+import java.util.function.IntConsumer;
+
+/**
+ * Single-pass, allocation-free integer scanner for the PARSING LAYER of the pipeline.
+ *
+ * <p>Walks a {@link CharSequence} (a {@code String}, or a {@code char[]} wrapped with
+ * {@code java.nio.CharBuffer.wrap}) once, splitting on runs of spaces and commas exactly
+ * like {@code input.split("[ ,]+")} and converting each token to an {@code int} directly
+ * from its characters. No regex, no {@code String[]} and no per-token substrings are
+ * created; a {@code String} is only built when an invalid token has to be reported.
+ *
+ * <p>Conversion follows {@link Integer#parseInt(String)}: an optional leading {@code '+'}
+ * or {@code '-'}, at least one decimal digit (any Unicode digit accepted by
+ * {@link Character#digit(char, int)}), and overflow outside the {@code int} range is
+ * rejected. Tokens consisting only of whitespace are skipped, as before.
+ *
+ * <p>Usage is cursor style so every caller can choose its own policy for invalid tokens:
+ * <pre>
+ *   IntTokenizer tokens = new IntTokenizer(input, false);
+ *   int state;
+ *   while ((state = tokens.next()) != IntTokenizer.END) {
+ *       if (state == IntTokenizer.INT) { use(tokens.value()); }
+ *       else { throw tokens.invalidToken(); }
+ *   }
+ * </pre>
+ */
+public final class IntTokenizer {
+
+    /** Returned by {@link #next()} when the input is exhausted. */
+    public static final int END = 0;
+
+    /** Returned by {@link #next()} when the current token is a valid integer. */
+    public static final int INT = 1;
+
+    /** Returned by {@link #next()} when the current token is not a valid integer. */
+    public static final int INVALID = -1;
+
+    /** Shared overflow guard; identical for both signs because |MIN_VALUE| / 10 == MAX_VALUE / 10. */
+    private static final int MULTMIN = -Integer.MAX_VALUE / 10;
+
+    private final CharSequence input;
+    private final int end;
+    private final boolean trimTokens;
+    private int pos;
+    private int tokenStart;
+    private int tokenEnd;
+    private int value;
+
+    /**
+     * Creates a scanner over the whole input.
+     *
+     * @param input the characters to scan
+     * @param trimTokens true to strip whitespace around each token before conversion
+     *                   (the {@code token.trim()} behaviour of the validation methods),
+     *                   false to convert the raw token (the {@code processInput} behaviour)
+     * @throws NullPointerException if input is null
+     */
+    public IntTokenizer(CharSequence input, boolean trimTokens) {
+        this(input, 0, input.length(), trimTokens);
+    }
+
+    /**
+     * Creates a scanner over {@code input[start, end)}.
+     *
+     * @param input the characters to scan
+     * @param start index of the first character to scan
+     * @param end index one past the last character to scan
+     * @param trimTokens see {@link #IntTokenizer(CharSequence, boolean)}
+     */
+    public IntTokenizer(CharSequence input, int start, int end, boolean trimTokens) {
+        this.input = input;
+        this.pos = start;
+        this.end = end;
+        this.trimTokens = trimTokens;
+    }
+
+    /**
+     * Advances to the next non-blank token and converts it.
+     *
+     * @return {@link #INT}, {@link #INVALID} or {@link #END}
+     */
+    public int next() {
+        final CharSequence s = input;
+        while (true) {
+            int i = pos;
+            while (i < end && isDelimiter(s.charAt(i))) {
+                i++;
+            }
+            if (i >= end) {
+                pos = end;
+                return END;
+            }
+            tokenStart = i;
+
+            // Fast path: optional sign followed by ASCII digits, ended by a delimiter or the end.
+            char c = s.charAt(i);
+            boolean negative = false;
+            int limit = -Integer.MAX_VALUE;
+            if (c == '-') {
+                negative = true;
+                limit = Integer.MIN_VALUE;
+                i++;
+            } else if (c == '+') {
+                i++;
+            }
+            int digitsStart = i;
+            int result = 0;
+            while (i < end) {
+                c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                int digit = c - '0';
+                if (result < MULTMIN) {
+                    break;
+                }
+                result *= 10;
+                if (result < limit + digit) {
+                    break;
+                }
+                result -= digit;
+                i++;
+            }
+            if (i > digitsStart && (i == end || isDelimiter(s.charAt(i)))) {
+                tokenEnd = i;
+                pos = i;
+                value = negative ? result : -result;
+                return INT;
+            }
+
+            // Slow path: whitespace, non-ASCII digits, overflow or garbage.
+            int state = slowToken();
+            if (state != END) {
+                return state;
+            }
+        }
+    }
+
+    /**
+     * Returns the value of the current token; only meaningful after {@link #next()} returned {@link #INT}.
+     *
+     * @return the parsed integer
+     */
+    public int value() {
+        return value;
+    }
+
+    /**
+     * Returns the index of the first character of the current token.
+     *
+     * @return start offset of the current token in the input
+     */
+    public int tokenStart() {
+        return tokenStart;
+    }
+
+    /**
+     * Returns the index one past the last character of the current token.
+     *
+     * @return end offset of the current token in the input
+     */
+    public int tokenEnd() {
+        return tokenEnd;
+    }
+
+    /**
+     * Builds the exception {@link Integer#parseInt(String)} would have thrown for the current token.
+     *
+     * @return a NumberFormatException describing the current token
+     */
+    public NumberFormatException invalidToken() {
+        return new NumberFormatException("For input string: \""
+                + input.subSequence(tokenStart, tokenEnd) + "\"");
+    }
+
+    /**
+     * Parses every token of {@code input[start, end)} into {@code out}, in input order,
+     * with the raw-token ({@code processInput}) rules.
+     *
+     * @param input the characters to scan
+     * @param start index of the first character to scan
+     * @param end index one past the last character to scan
+     * @param out buffer receiving the values
+     * @throws NumberFormatException for the first invalid token
+     */
+    public static void parseInto(CharSequence input, int start, int end, IntList out) {
+        IntTokenizer tokens = new IntTokenizer(input, start, end, false);
+        int state;
+        while ((state = tokens.next()) != END) {
+            if (state == INVALID) {
+                throw tokens.invalidToken();
+            }
+            out.add(tokens.value);
+        }
+    }
+
+    /**
+     * Passes every token of {@code input[start, end)} to {@code out}, in input order, with the
+     * raw-token ({@code processInput}) rules, for consumers that do not need the values stored.
+     *
+     * @param input the characters to scan
+     * @param start index of the first character to scan
+     * @param end index one past the last character to scan
+     * @param out receives the values, e.g. a {@link PartialSort.TopK}
+     * @throws NumberFormatException for the first invalid token
+     */
+    public static void forEach(CharSequence input, int start, int end, IntConsumer out) {
+        IntTokenizer tokens = new IntTokenizer(input, start, end, false);
+        int state;
+        while ((state = tokens.next()) != END) {
+            if (state == INVALID) {
+                throw tokens.invalidToken();
+            }
+            out.accept(tokens.value);
+        }
+    }
+
+    /**
+     * Counts the tokens of {@code input[start, end)} without converting them: the number of
+     * positions where a non-delimiter follows a delimiter or the start. Used to allocate the
+     * STORAGE LAYER buffer once at the right size. The count is exact for valid input and an
+     * upper bound otherwise (whitespace-only tokens are counted but later skipped).
+     *
+     * <p>The loop is branch-free (the delimiter test is turned into 0/1 arithmetic), so it runs
+     * at a steady rate whatever the token lengths and can be unrolled by the JIT.
+     *
+     * @param input the characters to scan
+     * @param start index of the first character to scan
+     * @param end index one past the last character to scan
+     * @return the number of tokens
+     */
+    public static int countTokens(CharSequence input, int start, int end) {
+        int count = 0;
+        int previousDelimiter = 1;
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            int delimiter = (c == ' ' ? 1 : 0) | (c == ',' ? 1 : 0);
+            count += previousDelimiter & (delimiter ^ 1);
+            previousDelimiter = delimiter;
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether a character separates tokens (the {@code [ ,]} character class).
+     *
+     * @param c the character to test
+     * @return true for a space or a comma
+     */
+    public static boolean isDelimiter(char c) {
+        return c == ' ' || c == ',';
+    }
+
+    /**
+     * Allocation-free equivalent of {@code input.trim().isEmpty()}.
+     *
+     * @param input the characters to test
+     * @return true if every character is whitespace or a control character
+     */
+    public static boolean isBlank(CharSequence input) {
+        for (int i = 0, n = input.length(); i < n; i++) {
+            if (input.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Re-scans the token at {@code tokenStart} with full {@link Integer#parseInt} rules.
+     *
+     * @return {@link #INT} or {@link #INVALID}, or {@link #END} if the token was blank and skipped
+     */
+    private int slowToken() {
+        final CharSequence s = input;
+        int i = tokenStart;
+        while (i < end && !isDelimiter(s.charAt(i))) {
+            i++;
+        }
+        pos = i;
+        int from = tokenStart;
+        int to = i;
+        while (from < to && s.charAt(from) <= ' ') {
+            from++;
+        }
+        if (from == to) {
+            return END;
+        }
+        if (trimTokens) {
+            while (s.charAt(to - 1) <= ' ') {
+                to--;
+            }
+        } else {
+            from = tokenStart;
+        }
+        tokenStart = from;
+        tokenEnd = to;
+        return parse(s, from, to) ? INT : INVALID;
+    }
+
+    /**
+     * Converts {@code s[from, to)} following {@link Integer#parseInt(String)} and stores it in {@code value}.
+     *
+     * @return false if the characters do not form an int
+     */
+    private boolean parse(CharSequence s, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        int limit = -Integer.MAX_VALUE;
+        char first = s.charAt(i);
+        if (first < '0') {
+            if (first == '-') {
+                negative = true;
+                limit = Integer.MIN_VALUE;
+            } else if (first != '+') {
+                return false;
+            }
+            i++;
+            if (i == to) {
+                return false;
+            }
+        }
+        int result = 0;
+        while (i < to) {
+            int digit = Character.digit(s.charAt(i++), 10);
+            if (digit < 0 || result < MULTMIN) {
+                return false;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return false;
+            }
+            result -= digit;
+        }
+        value = negative ? result : -result;
+        return true;
+    }
+}
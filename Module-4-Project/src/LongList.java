@@ -0,0 +1,216 @@
+import java.util.Arrays;
+
+/**
+ * Growable primitive {@code long[]} buffer: the {@link NumberWidth#LONG} counterpart of
+ * {@link IntList} for the STORAGE and PROCESSING layers.
+ *
+ * <p>Values are stored unboxed, 8 bytes each, and sorted with the same choice of algorithms as
+ * {@link SortStrategy}, specialized for {@code long}: {@link Arrays#sort(long[], int, int)}, an
+ * LSD radix sort with only as many 8-bit passes as {@code max - min} needs, or a counting sort
+ * when the values span a narrow range (e.g. 64-bit IDs that share their upper bits).
+ */
+public final class LongList {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** Largest array size the VM reliably allows. */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private long[] values;
+    private int size;
+
+    /**
+     * Creates an empty buffer with a small default capacity.
+     */
+    public LongList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty buffer able to hold {@code capacity} values before growing.
+     *
+     * @param capacity initial capacity
+     * @throws IllegalArgumentException if capacity is negative
+     */
+    public LongList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        }
+        values = new long[capacity];
+    }
+
+    /**
+     * Appends a value, growing the backing array by half its size when full.
+     *
+     * @param value the value to append
+     */
+    public void add(long value) {
+        if (size == values.length) {
+            grow(size + 1);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Returns the value at {@code index}.
+     *
+     * @param index position of the value
+     * @return the stored value
+     * @throws IndexOutOfBoundsException if index is outside {@code [0, size)}
+     */
+    public long get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return values[index];
+    }
+
+    /**
+     * Returns the number of stored values.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the backing array; only the first {@link #size()} entries are meaningful.
+     *
+     * @return the backing array (not a copy)
+     */
+    public long[] array() {
+        return values;
+    }
+
+    /**
+     * Returns the stored values as an exactly-sized array.
+     *
+     * @return a new array, or the backing array itself when it is already exactly full
+     */
+    public long[] toArray() {
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Sorts the stored values in ascending order.
+     *
+     * @param strategy the sorting algorithm; {@link SortStrategy#AUTO} chooses from a min/max
+     *                 pre-pass with the same thresholds as for {@code int}
+     * @return this buffer
+     * @throws IllegalArgumentException if {@link SortStrategy#COUNTING} is forced on a range
+     *         that is too wide
+     */
+    public LongList sort(SortStrategy strategy) {
+        if (size < 2) {
+            return this;
+        }
+        if (strategy == SortStrategy.COMPARISON) {
+            Arrays.sort(values, 0, size);
+            return this;
+        }
+        long min = values[0];
+        long max = min;
+        for (int i = 1; i < size; i++) {
+            long v = values[i];
+            if (v < min) {
+                min = v;
+            } else if (v > max) {
+                max = v;
+            }
+        }
+        if (min == max) {
+            return this;
+        }
+        // max - min as an unsigned 64-bit number; the subtraction may wrap
+        long span = max - min;
+        boolean narrow = Long.compareUnsigned(span, SortStrategy.MAX_COUNTING_RANGE - 1) <= 0;
+        if (strategy == SortStrategy.AUTO) {
+            if (size < SortStrategy.SMALL_INPUT) {
+                strategy = SortStrategy.COMPARISON;
+            } else if (narrow && span < size) {
+                strategy = SortStrategy.COUNTING;
+            } else {
+                strategy = size >= SortStrategy.RADIX_THRESHOLD ? SortStrategy.RADIX : SortStrategy.COMPARISON;
+            }
+        }
+        switch (strategy) {
+            case COUNTING:
+                if (!narrow) {
+                    throw new IllegalArgumentException("Value range " + Long.toUnsignedString(span)
+                            + " is too wide for counting sort (limit " + SortStrategy.MAX_COUNTING_RANGE + ")");
+                }
+                countingSort(min, (int) span + 1);
+                break;
+            case RADIX:
+                radixSort(min, span);
+                break;
+            default:
+                Arrays.sort(values, 0, size);
+                break;
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private void countingSort(long min, int range) {
+        int[] counts = new int[range];
+        for (int i = 0; i < size; i++) {
+            counts[(int) (values[i] - min)]++;
+        }
+        int out = 0;
+        for (int bucket = 0; bucket < range; bucket++) {
+            long value = min + bucket;
+            for (int c = counts[bucket]; c > 0; c--) {
+                values[out++] = value;
+            }
+        }
+    }
+
+    /** LSD radix sort of {@code value - min}, one pass per significant byte of {@code span}. */
+    private void radixSort(long min, long span) {
+        int passes = (64 - Long.numberOfLeadingZeros(span) + 7) >>> 3;
+        long[] src = values;
+        long[] dst = new long[size];
+        int[] counts = new int[256];
+        for (int pass = 0; pass < passes; pass++) {
+            int shift = pass << 3;
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < size; i++) {
+                counts[(int) ((src[i] - min) >>> shift) & 0xFF]++;
+            }
+            int offset = 0;
+            for (int b = 0; b < 256; b++) {
+                int c = counts[b];
+                counts[b] = offset;
+                offset += c;
+            }
+            for (int i = 0; i < size; i++) {
+                long v = src[i];
+                dst[counts[(int) ((v - min) >>> shift) & 0xFF]++] = v;
+            }
+            long[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != values) {
+            System.arraycopy(src, 0, values, 0, size);
+        }
+    }
+
+    private void grow(int minCapacity) {
+        int old = values.length;
+        if (minCapacity > MAX_CAPACITY) {
+            throw new OutOfMemoryError("Required array length too large: " + minCapacity);
+        }
+        int capacity = old + (old >> 1);
+        if (capacity < minCapacity || capacity > MAX_CAPACITY) {
+            capacity = Math.max(minCapacity, Math.min(capacity, MAX_CAPACITY));
+        }
+        values = Arrays.copyOf(values, Math.max(capacity, DEFAULT_CAPACITY));
+    }
+}
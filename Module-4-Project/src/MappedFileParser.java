@@ -0,0 +1,190 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+/**
+ * File INPUT and PARSING LAYER: parses integer dump files through memory-mapped windows.
+ *
+ * <p>The file is mapped with {@link FileChannel#map} in windows whose boundaries are moved
+ * forward to the next delimiter, so no token spans two windows. Each window is exposed to
+ * {@link IntTokenizer} as a {@link CharSequence} view that reads the mapped bytes in place,
+ * so file contents are never copied through a {@code Reader}, a {@code String} or a
+ * {@code byte[]}. Windows are parsed in parallel with {@link ParallelParser#parseAll}, or one
+ * after another with {@link #forEach} when the values should be streamed (e.g. into an
+ * {@link ExternalSort}).
+ *
+ * <p>Files are ASCII text. Tokens follow {@link UserInput#processInput(String)}, except that
+ * line breaks ({@code \n}, {@code \r}) also separate tokens, so both one-line and
+ * one-value-per-line dumps work. Errors are reported for the first invalid token in the file.
+ */
+public final class MappedFileParser {
+
+    /** Upper bound for one mapped window. */
+    public static final int DEFAULT_WINDOW_BYTES = 64 << 20;
+
+    /** Lower bound for one mapped window when splitting for parallelism. */
+    private static final int MIN_WINDOW_BYTES = 1 << 20;
+
+    private MappedFileParser() {
+    }
+
+    /**
+     * Parses every integer in the file on the common pool, keeping file order.
+     *
+     * @param file the file to parse
+     * @return buffer of parsed integers in file order
+     * @throws IOException if the file cannot be mapped
+     * @throws NumberFormatException for the first invalid token in the file
+     */
+    public static IntList parse(Path file) throws IOException {
+        return parse(file, DEFAULT_WINDOW_BYTES, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parses every integer in the file, handing the mapped windows to the pool's workers.
+     *
+     * @param file the file to parse
+     * @param windowBytes largest window to map at once
+     * @param pool the pool that parses the windows
+     * @return buffer of parsed integers in file order
+     * @throws IOException if the file cannot be mapped
+     * @throws NumberFormatException for the first invalid token in the file
+     */
+    public static IntList parse(Path file, int windowBytes, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long perWorker = size / (pool.getParallelism() * 4L);
+            int window = (int) Math.min(windowBytes, Math.max(MIN_WINDOW_BYTES, perWorker));
+            // each window is sized by a byte-level token count, SIMD where available
+            return ParallelParser.parseAll(windows(channel, window), MappedWindow::countTokens, pool);
+        }
+    }
+
+    /**
+     * Passes every integer in the file to {@code out} in file order, mapping one window at a time.
+     *
+     * @param file the file to parse
+     * @param out receives the values
+     * @throws IOException if the file cannot be mapped
+     * @throws NumberFormatException for the first invalid token in the file
+     */
+    public static void forEach(Path file, IntConsumer out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            while (start < size) {
+                long end = nextBoundary(channel, Math.min(size, start + DEFAULT_WINDOW_BYTES), size);
+                IntTokenizer tokens = new IntTokenizer(map(channel, start, end), false);
+                int state;
+                while ((state = tokens.next()) != IntTokenizer.END) {
+                    if (state == IntTokenizer.INVALID) {
+                        throw tokens.invalidToken();
+                    }
+                    out.accept(tokens.value());
+                }
+                start = end;
+            }
+        }
+    }
+
+    /** Maps the whole file as delimiter-aligned windows of roughly {@code windowBytes}. */
+    private static List<MappedWindow> windows(FileChannel channel, int windowBytes) throws IOException {
+        long size = channel.size();
+        List<MappedWindow> windows = new ArrayList<>();
+        long start = 0;
+        while (start < size) {
+            long end = nextBoundary(channel, Math.min(size, start + windowBytes), size);
+            windows.add(map(channel, start, end));
+            start = end;
+        }
+        return windows;
+    }
+
+    private static MappedWindow map(FileChannel channel, long start, long end) throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IOException("Token too long to map at offset " + start);
+        }
+        return new MappedWindow(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+    }
+
+    /** Returns the first position at or after {@code from} that holds a delimiter, or {@code size}. */
+    private static long nextBoundary(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(64);
+        long position = from;
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (isSeparator(probe.get(i))) {
+                    return position + i;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == ',' || b == '\n' || b == '\r';
+    }
+
+    /**
+     * Read-only {@link CharSequence} over mapped ASCII bytes; line breaks read as spaces so the
+     * tokenizer treats them as delimiters.
+     */
+    static final class MappedWindow implements CharSequence {
+        private final MappedByteBuffer bytes;
+        private final int offset;
+        private final int length;
+
+        MappedWindow(MappedByteBuffer bytes) {
+            this(bytes, 0, bytes.limit());
+        }
+
+        private MappedWindow(MappedByteBuffer bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /** {@link IntTokenizer#countTokens} of the whole window, over the bytes; see {@link IntKernels}. */
+        int countTokens() {
+            return IntKernels.INSTANCE.countTokens(bytes, offset, offset + length);
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            byte b = bytes.get(offset + index);
+            return b == '\n' || b == '\r' ? ' ' : (char) (b & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new MappedWindow(bytes, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = charAt(i);
+            }
+            return new String(chars);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+import java.math.BigInteger;
+
+/**
+ * Integer width of the PARSING, STORAGE and PROCESSING layers.
+ *
+ * <p>Each width has its own primitive-specialized path, so the common {@code int} case keeps its
+ * speed and {@code long} input never falls back to boxed {@code Long} collections:
+ * <ul>
+ *   <li>{@link #INT} - {@link IntTokenizer}, {@link IntList} and {@link SortStrategy}, 4 bytes per value;</li>
+ *   <li>{@link #LONG} - {@link WideTokenizer#parseLongs}, {@link LongList} and its own
+ *       comparison, radix and counting sorts, 8 bytes per value;</li>
+ *   <li>{@link #BIG_INTEGER} - {@link WideTokenizer#parseBigIntegers} into a {@code BigInteger[]}
+ *       sorted with {@link java.util.Arrays#sort(Object[])}, for values beyond 64 bits.</li>
+ * </ul>
+ * {@link #AUTO} picks the narrowest width that holds every value, see {@link #detect(CharSequence)}.
+ */
+public enum NumberWidth {
+
+    /** The narrowest width that holds every value. */
+    AUTO,
+
+    /** 32-bit values. */
+    INT,
+
+    /** 64-bit values. */
+    LONG,
+
+    /** Values of any size. */
+    BIG_INTEGER;
+
+    /**
+     * Scans the input once and returns the narrowest width that holds every token:
+     * {@link #INT}, {@link #LONG} or {@link #BIG_INTEGER}. A token that is not an integer at all
+     * yields {@link #INT}, so the int path reports it with its usual {@link NumberFormatException}.
+     *
+     * @param input integers separated by spaces or commas
+     * @return the width to parse the input with
+     */
+    public static NumberWidth detect(CharSequence input) {
+        NumberWidth width = INT;
+        IntTokenizer tokens = new IntTokenizer(input, false);
+        int state;
+        while ((state = tokens.next()) != IntTokenizer.END) {
+            if (state == IntTokenizer.INVALID) {
+                // only tokens that overflow int (or are not integers) get here
+                NumberWidth token = widthOf(input, tokens.tokenStart(), tokens.tokenEnd());
+                if (token == null) {
+                    return INT;
+                }
+                if (token.compareTo(width) > 0) {
+                    width = token;
+                }
+            }
+        }
+        return width;
+    }
+
+    /** Width of a token the int tokenizer rejected, or null if it is no integer at all. */
+    private static NumberWidth widthOf(CharSequence input, int start, int end) {
+        try {
+            Long.parseLong(input, start, end, 10);
+            return LONG;
+        } catch (NumberFormatException e) {
+            // not a long; maybe wider
+        }
+        try {
+            new BigInteger(input.subSequence(start, end).toString());
+            return BIG_INTEGER;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,422 @@
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Off-heap STORAGE LAYER for more integers than an {@code int[]} can hold.
+ *
+ * <p>{@link IntList} is limited to about 2^31 values, and billions of values on the Java heap mean
+ * tens of GB the garbage collector has to track. This list keeps its values outside the heap, in
+ * direct {@link ByteBuffer} segments of {@link #DEFAULT_SEGMENT_INTS} ints each, and indexes them
+ * with a {@code long}: the upper bits of the index pick the segment, the lower bits the slot. The
+ * heap only holds the segment table, so a multi-billion-value sort runs with a small {@code -Xmx}.
+ * Direct memory is capped by {@code -XX:MaxDirectMemorySize} (by default the heap size), which has
+ * to be raised for large inputs, e.g. {@code -Xmx256m -XX:MaxDirectMemorySize=20g}.
+ *
+ * <p>{@link #sort()} works in place: an American flag sort (MSD radix sort, 8 bits per level)
+ * permutes the values into 256 buckets by swapping within the segments, and buckets are sorted
+ * in parallel on the fork-join common pool. Buckets of up to {@link #LEAF_INTS} values are copied
+ * to a small per-thread {@code int[]}, sorted with {@link SortStrategy#AUTO} and copied back. No
+ * second copy of the data is ever allocated.
+ *
+ * <p>The memory is released by {@link #close()} rather than by the garbage collector, so the
+ * list is meant for try-with-resources. A closed list is empty and rejects new values. The list
+ * is not thread-safe, and must not be closed while another thread uses it.
+ *
+ * <pre>
+ *   try (OffHeapIntList values = new OffHeapIntList()) {
+ *       MappedFileParser.forEach(file, values);
+ *       values.sort();
+ *       values.forEach(out);
+ *   }
+ * </pre>
+ */
+public final class OffHeapIntList implements IntConsumer, AutoCloseable {
+
+    /** Ints per segment: 2^26, i.e. 256 MB of direct memory. */
+    public static final int DEFAULT_SEGMENT_INTS = 1 << 26;
+
+    /** Buckets up to this size (256 KB as {@code int[]}) are sorted on the heap. */
+    static final int LEAF_INTS = 1 << 16;
+
+    /** Buckets smaller than this are not worth a fork-join task. */
+    private static final long PARALLEL_MIN = 1 << 20;
+
+    /** Capacity of the first segment; it doubles until it reaches the segment size. */
+    private static final int INITIAL_INTS = 1 << 10;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /** {@code sun.misc.Unsafe.invokeCleaner(ByteBuffer)}, or null to leave freeing to the GC. */
+    private static final Method INVOKE_CLEANER;
+    private static final Object UNSAFE;
+
+    static {
+        Method invokeCleaner = null;
+        Object unsafe = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        INVOKE_CLEANER = invokeCleaner;
+        UNSAFE = unsafe;
+    }
+
+    private final int segmentShift;
+    private final int segmentMask;
+    private final List<ByteBuffer> memory = new ArrayList<>();
+    private IntBuffer[] segments = new IntBuffer[0];
+    private long size;
+    private boolean closed;
+
+    /**
+     * Creates an empty list with segments of {@link #DEFAULT_SEGMENT_INTS} ints. Direct memory is
+     * allocated as values are added.
+     */
+    public OffHeapIntList() {
+        this(DEFAULT_SEGMENT_INTS);
+    }
+
+    /**
+     * Creates an empty list with the given segment size, e.g. tiny segments for tests.
+     *
+     * @param segmentInts ints per segment, a power of two of at least 16
+     * @throws IllegalArgumentException if segmentInts is not such a power of two or larger than
+     *         {@link #DEFAULT_SEGMENT_INTS} times 4
+     */
+    OffHeapIntList(int segmentInts) {
+        if (segmentInts < 16 || Integer.bitCount(segmentInts) != 1 || segmentInts > DEFAULT_SEGMENT_INTS << 2) {
+            throw new IllegalArgumentException("Segment size must be a power of two between 16 and "
+                    + (DEFAULT_SEGMENT_INTS << 2) + ": " + segmentInts);
+        }
+        segmentShift = Integer.numberOfTrailingZeros(segmentInts);
+        segmentMask = segmentInts - 1;
+    }
+
+    /**
+     * Appends a value, allocating another segment when the last one is full.
+     *
+     * @param value the value to append
+     * @throws IllegalStateException if the list is closed
+     * @throws OutOfMemoryError if the direct memory limit is reached
+     */
+    public void add(int value) {
+        int slot = (int) size & segmentMask;
+        int segment = (int) (size >>> segmentShift);
+        if (segment == segments.length || slot == segments[segment].capacity()) {
+            grow(segment);
+        }
+        segments[segment].put(slot, value);
+        size++;
+    }
+
+    /**
+     * Appends a value, so parsers and decoders can fill the list directly, e.g.
+     * {@link MappedFileParser#forEach} or {@link BinaryCodec#forEach}.
+     *
+     * @param value the value to append
+     */
+    @Override
+    public void accept(int value) {
+        add(value);
+    }
+
+    /**
+     * Returns the value at {@code index}.
+     *
+     * @param index position of the value
+     * @return the stored value
+     * @throws IndexOutOfBoundsException if index is outside {@code [0, size)}
+     */
+    public int get(long index) {
+        checkIndex(index);
+        return segments[(int) (index >>> segmentShift)].get((int) index & segmentMask);
+    }
+
+    /**
+     * Replaces the value at {@code index}.
+     *
+     * @param index position of the value
+     * @param value the new value
+     * @throws IndexOutOfBoundsException if index is outside {@code [0, size)}
+     */
+    public void set(long index, int value) {
+        checkIndex(index);
+        segments[(int) (index >>> segmentShift)].put((int) index & segmentMask, value);
+    }
+
+    /**
+     * Returns the number of stored values, which may exceed {@link Integer#MAX_VALUE}.
+     *
+     * @return the size
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the direct memory currently allocated.
+     *
+     * @return allocated bytes, at least {@code 4 * size()}
+     */
+    public long allocatedBytes() {
+        long bytes = 0;
+        for (ByteBuffer buffer : memory) {
+            bytes += buffer.capacity();
+        }
+        return bytes;
+    }
+
+    /**
+     * Sorts the values in ascending order in place, on the fork-join common pool.
+     *
+     * @return this list
+     * @throws IllegalStateException if the list is closed
+     */
+    public OffHeapIntList sort() {
+        ensureOpen();
+        if (size > 1) {
+            ForkJoinPool.commonPool().invoke(new SortTask(0, size, 24));
+        }
+        return this;
+    }
+
+    /**
+     * Passes every value to {@code out} in index order, e.g. to an {@link IntListWriter} or a
+     * {@link BinaryCodec.Encoder}.
+     *
+     * @param out receives the values
+     */
+    public void forEach(IntConsumer out) {
+        int[] chunk = SCRATCH.get().values;
+        for (long from = 0; from < size; from += chunk.length) {
+            int n = (int) Math.min(chunk.length, size - from);
+            copyOut(from, chunk, n);
+            for (int i = 0; i < n; i++) {
+                out.accept(chunk[i]);
+            }
+        }
+    }
+
+    /**
+     * Copies the values into a heap array.
+     *
+     * @return a new array of {@link #size()} values
+     * @throws IllegalStateException if the list holds more values than an array can
+     */
+    public int[] toArray() {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Too many values for an int[]: " + size);
+        }
+        int[] values = new int[(int) size];
+        copyOut(0, values, values.length);
+        return values;
+    }
+
+    /**
+     * Removes every value but keeps the allocated segments for reuse.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Frees the direct memory at once instead of when the garbage collector finds the buffers.
+     * Idempotent; the list is empty afterwards.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        size = 0;
+        segments = new IntBuffer[0];
+        for (ByteBuffer buffer : memory) {
+            free(buffer);
+        }
+        memory.clear();
+    }
+
+    @Override
+    public String toString() {
+        return size <= 1000 ? Arrays.toString(toArray()) : "OffHeapIntList[size=" + size + "]";
+    }
+
+    private void grow(int segment) {
+        ensureOpen();
+        int segmentInts = segmentMask + 1;
+        if (segment == segments.length) {
+            // a new segment starts small while it is the only one, otherwise at full size
+            int capacity = segment == 0 ? Math.min(INITIAL_INTS, segmentInts) : segmentInts;
+            segments = Arrays.copyOf(segments, segment + 1);
+            segments[segment] = allocate(capacity);
+            return;
+        }
+        IntBuffer old = segments[segment];
+        IntBuffer grown = allocate(Math.min(old.capacity() * 2, segmentInts));
+        grown.put(0, old, 0, old.capacity());
+        segments[segment] = grown;
+        ByteBuffer oldMemory = memory.remove(memory.size() - 2);
+        free(oldMemory);
+    }
+
+    private IntBuffer allocate(int ints) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(ints * Integer.BYTES).order(ByteOrder.nativeOrder());
+        memory.add(buffer);
+        return buffer.asIntBuffer();
+    }
+
+    private static void free(ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException e) {
+            // left to the garbage collector
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("OffHeapIntList is closed");
+        }
+    }
+
+    private void checkIndex(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private int read(long index) {
+        return segments[(int) (index >>> segmentShift)].get((int) index & segmentMask);
+    }
+
+    private void write(long index, int value) {
+        segments[(int) (index >>> segmentShift)].put((int) index & segmentMask, value);
+    }
+
+    /** Copies {@code n} values starting at {@code from} into {@code dst[0, n)}, segment by segment. */
+    private void copyOut(long from, int[] dst, int n) {
+        int done = 0;
+        while (done < n) {
+            long index = from + done;
+            int slot = (int) index & segmentMask;
+            int chunk = Math.min(n - done, segmentMask + 1 - slot);
+            segments[(int) (index >>> segmentShift)].get(slot, dst, done, chunk);
+            done += chunk;
+        }
+    }
+
+    /** Copies {@code src[0, n)} back to the values starting at {@code from}. */
+    private void copyIn(long from, int[] src, int n) {
+        int done = 0;
+        while (done < n) {
+            long index = from + done;
+            int slot = (int) index & segmentMask;
+            int chunk = Math.min(n - done, segmentMask + 1 - slot);
+            segments[(int) (index >>> segmentShift)].put(slot, src, done, chunk);
+            done += chunk;
+        }
+    }
+
+    /** Bucket of an MSD radix level; the sign bit is flipped so negative values come first. */
+    private static int digit(int value, int shift) {
+        return ((value ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+    }
+
+    /** Per-thread heap space for leaf buckets and {@link #forEach}. */
+    private static final class Scratch {
+        final int[] values = new int[LEAF_INTS];
+        final SortStrategy.Buffers buffers = new SortStrategy.Buffers();
+    }
+
+    /** Sorts {@code [lo, hi)}, whose values agree on every digit above {@code shift}. */
+    private final class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long lo;
+        private final long hi;
+        private final int shift;
+
+        SortTask(long lo, long hi, int shift) {
+            this.lo = lo;
+            this.hi = hi;
+            this.shift = shift;
+        }
+
+        @Override
+        protected void compute() {
+            sort(lo, hi, shift);
+        }
+
+        private void sort(long from, long to, int digitShift) {
+            long n = to - from;
+            if (n <= LEAF_INTS) {
+                Scratch scratch = SCRATCH.get();
+                copyOut(from, scratch.values, (int) n);
+                SortStrategy.AUTO.sort(scratch.values, 0, (int) n, scratch.buffers);
+                copyIn(from, scratch.values, (int) n);
+                return;
+            }
+            long[] next = new long[256];
+            long[] end = new long[256];
+            for (long i = from; i < to; i++) {
+                end[digit(read(i), digitShift)]++;
+            }
+            long start = from;
+            for (int b = 0; b < 256; b++) {
+                long count = end[b];
+                next[b] = start;
+                start += count;
+                end[b] = start;
+            }
+            // American flag permutation: each value is swapped straight into its bucket
+            for (int b = 0; b < 256; b++) {
+                while (next[b] < end[b]) {
+                    int value = read(next[b]);
+                    int d = digit(value, digitShift);
+                    while (d != b) {
+                        long slot = next[d]++;
+                        int displaced = read(slot);
+                        write(slot, value);
+                        value = displaced;
+                        d = digit(value, digitShift);
+                    }
+                    write(next[b]++, value);
+                }
+            }
+            if (digitShift == 0) {
+                return; // every bucket holds one value
+            }
+            List<SortTask> forks = new ArrayList<>();
+            long bucketStart = from;
+            for (int b = 0; b < 256; b++) {
+                long bucketEnd = end[b];
+                if (bucketEnd - bucketStart >= PARALLEL_MIN) {
+                    forks.add(new SortTask(bucketStart, bucketEnd, digitShift - 8));
+                } else if (bucketEnd - bucketStart > 1) {
+                    sort(bucketStart, bucketEnd, digitShift - 8);
+                }
+                bucketStart = bucketEnd;
+            }
+            invokeAll(forks);
+        }
+    }
+}
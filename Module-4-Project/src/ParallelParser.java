@@ -0,0 +1,298 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Chunked fork-join PARSING LAYER for very large single-line inputs.
+ *
+ * <p>The input is cut into chunks whose boundaries are moved forward to the next space or comma,
+ * so no token is ever split. Every chunk is scanned by its own {@link IntTokenizer} into its own
+ * {@link IntList} on a fork-join pool. The per-chunk buffers are then either concatenated in input
+ * order ({@link #parse}) or sorted locally and k-way merged ({@link #parseSorted}).
+ *
+ * <p>Error behaviour matches the sequential parser: when several chunks contain invalid tokens,
+ * the exception thrown is the one for the invalid token that comes first in the input. Chunks
+ * after a chunk known to be invalid stop early.
+ */
+public final class ParallelParser {
+
+    /** Inputs shorter than two chunks of this many characters are parsed sequentially. */
+    public static final int MIN_CHUNK_CHARS = 1 << 16;
+
+    private ParallelParser() {
+    }
+
+    /**
+     * Parses every integer in the input on the common pool, keeping input order.
+     *
+     * @param input the characters containing integers separated by spaces or commas
+     * @return buffer of parsed integers in input order
+     * @throws NumberFormatException for the first invalid token in the input
+     */
+    public static IntList parse(CharSequence input) {
+        return parse(input, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parses every integer in the input on the given pool, keeping input order.
+     *
+     * @param input the characters containing integers separated by spaces or commas
+     * @param pool the pool that parses the chunks
+     * @return buffer of parsed integers in input order
+     * @throws NumberFormatException for the first invalid token in the input
+     */
+    public static IntList parse(CharSequence input, ForkJoinPool pool) {
+        return concat(parseChunks(input, pool, null));
+    }
+
+    /**
+     * Parses several independent pieces of input on the given pool and concatenates the values
+     * in piece order. Every piece must start and end on a token boundary.
+     *
+     * @param parts the pieces, in input order
+     * @param pool the pool that parses the pieces
+     * @return buffer of parsed integers in input order
+     * @throws NumberFormatException for the first invalid token in the first invalid piece
+     */
+    static IntList parseAll(List<? extends CharSequence> parts, ForkJoinPool pool) {
+        return parseAll(parts, part -> IntTokenizer.countTokens(part, 0, part.length()), pool);
+    }
+
+    /**
+     * Like {@link #parseAll(List, ForkJoinPool)}, with a piece-specific token count for sizing
+     * each piece's buffer, e.g. one that reads the bytes behind a {@link MappedFileParser} window
+     * directly. The count runs on the worker that parses the piece.
+     *
+     * @param parts the pieces, in input order
+     * @param tokenCount returns the number of tokens of a piece (an upper bound is fine)
+     * @param pool the pool that parses the pieces
+     * @return buffer of parsed integers in input order
+     * @throws NumberFormatException for the first invalid token in the first invalid piece
+     */
+    static <T extends CharSequence> IntList parseAll(List<T> parts, ToIntFunction<? super T> tokenCount,
+            ForkJoinPool pool) {
+        Chunk[] chunks = new Chunk[parts.size()];
+        AtomicInteger firstInvalid = new AtomicInteger(Integer.MAX_VALUE);
+        for (int i = 0; i < chunks.length; i++) {
+            T part = parts.get(i);
+            chunks[i] = new Chunk(part, 0, part.length(), i, null, firstInvalid, () -> tokenCount.applyAsInt(part));
+        }
+        return concat(invoke(chunks, pool));
+    }
+
+    /**
+     * Parses every integer in the input on the given pool, sorts each chunk with {@code strategy}
+     * and k-way merges the sorted chunks.
+     *
+     * @param input the characters containing integers separated by spaces or commas
+     * @param strategy the algorithm for sorting each chunk
+     * @param pool the pool that parses and sorts the chunks
+     * @return buffer of parsed integers in ascending order
+     * @throws NumberFormatException for the first invalid token in the input
+     */
+    public static IntList parseSorted(CharSequence input, SortStrategy strategy, ForkJoinPool pool) {
+        Chunk[] chunks = parseChunks(input, pool, strategy);
+        if (chunks.length == 1) {
+            return chunks[0].values;
+        }
+        IntList[] runs = new IntList[chunks.length];
+        for (int i = 0; i < chunks.length; i++) {
+            runs[i] = chunks[i].values;
+        }
+        return merge(runs);
+    }
+
+    /**
+     * Computes chunk boundaries so that each boundary sits on a delimiter (or the end of input).
+     *
+     * @param input the characters to split
+     * @param parallelism number of workers that will parse the chunks
+     * @return boundaries {@code b}, chunk {@code i} being {@code [b[i], b[i + 1])}
+     */
+    static int[] chunkBounds(CharSequence input, int parallelism) {
+        int length = input.length();
+        int chunks = Math.min(parallelism * 4, length / MIN_CHUNK_CHARS);
+        if (chunks < 2) {
+            return new int[] {0, length};
+        }
+        int step = length / chunks;
+        int[] bounds = new int[chunks + 1];
+        int count = 1;
+        int previous = 0;
+        for (int i = 1; i < chunks; i++) {
+            int at = Math.max(i * step, previous);
+            while (at < length && !IntTokenizer.isDelimiter(input.charAt(at))) {
+                at++;
+            }
+            if (at > previous && at < length) {
+                bounds[count++] = at;
+                previous = at;
+            }
+        }
+        bounds[count++] = length;
+        if (count < bounds.length) {
+            int[] trimmed = new int[count];
+            System.arraycopy(bounds, 0, trimmed, 0, count);
+            return trimmed;
+        }
+        return bounds;
+    }
+
+    private static Chunk[] parseChunks(CharSequence input, ForkJoinPool pool, SortStrategy strategy) {
+        int[] bounds = chunkBounds(input, pool.getParallelism());
+        int n = bounds.length - 1;
+        Chunk[] chunks = new Chunk[n];
+        AtomicInteger firstInvalid = new AtomicInteger(Integer.MAX_VALUE);
+        for (int i = 0; i < n; i++) {
+            chunks[i] = new Chunk(input, bounds[i], bounds[i + 1], i, strategy, firstInvalid, null);
+        }
+        return invoke(chunks, pool);
+    }
+
+    /** Runs every chunk, then throws the error of the first invalid chunk, if any. */
+    private static Chunk[] invoke(Chunk[] chunks, ForkJoinPool pool) {
+        if (chunks.length == 1) {
+            chunks[0].compute();
+        } else if (chunks.length > 1) {
+            List<Chunk> tasks = Arrays.asList(chunks);
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        }
+        for (Chunk chunk : chunks) {
+            if (chunk.error != null) {
+                throw chunk.error;
+            }
+        }
+        return chunks;
+    }
+
+    private static IntList concat(Chunk[] chunks) {
+        if (chunks.length == 1) {
+            return chunks[0].values;
+        }
+        long total = 0;
+        for (Chunk chunk : chunks) {
+            total += chunk.values.size();
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new OutOfMemoryError("Too many values for one int[]: " + total);
+        }
+        IntList result = new IntList((int) total);
+        for (Chunk chunk : chunks) {
+            result.addAll(chunk.values);
+        }
+        return result;
+    }
+
+    /** Merges sorted runs with a binary heap of run cursors. */
+    private static IntList merge(IntList[] runs) {
+        int k = runs.length;
+        int total = 0;
+        for (IntList run : runs) {
+            total += run.size();
+        }
+        int[] out = new int[total];
+        int[] heap = new int[k];
+        int[] position = new int[k];
+        int heapSize = 0;
+        for (int r = 0; r < k; r++) {
+            if (runs[r].size() > 0) {
+                heap[heapSize++] = r;
+            }
+        }
+        for (int i = (heapSize >>> 1) - 1; i >= 0; i--) {
+            siftDown(heap, heapSize, i, runs, position);
+        }
+        int o = 0;
+        while (heapSize > 0) {
+            int r = heap[0];
+            int[] values = runs[r].array();
+            out[o++] = values[position[r]++];
+            if (position[r] == runs[r].size()) {
+                heap[0] = heap[--heapSize];
+            }
+            if (heapSize > 0) {
+                siftDown(heap, heapSize, 0, runs, position);
+            }
+        }
+        return new IntList(out, total);
+    }
+
+    private static void siftDown(int[] heap, int size, int i, IntList[] runs, int[] position) {
+        int r = heap[i];
+        int key = runs[r].array()[position[r]];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            int c = heap[child];
+            int cKey = runs[c].array()[position[c]];
+            if (child + 1 < size) {
+                int d = heap[child + 1];
+                int dKey = runs[d].array()[position[d]];
+                if (dKey < cKey) {
+                    child++;
+                    c = d;
+                    cKey = dKey;
+                }
+            }
+            if (key <= cKey) {
+                break;
+            }
+            heap[i] = c;
+            i = child;
+        }
+        heap[i] = r;
+    }
+
+    /** Parses one delimiter-aligned slice of the input into its own buffer. */
+    private static final class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient CharSequence input;
+        private final int start;
+        private final int end;
+        private final int index;
+        private final SortStrategy strategy;
+        private final AtomicInteger firstInvalid;
+        private final transient IntSupplier tokenCount;
+        private transient IntList values;
+        private NumberFormatException error;
+
+        /** A null {@code tokenCount} pre-scans the characters with {@link IntTokenizer#countTokens}. */
+        Chunk(CharSequence input, int start, int end, int index, SortStrategy strategy,
+              AtomicInteger firstInvalid, IntSupplier tokenCount) {
+            this.input = input;
+            this.start = start;
+            this.end = end;
+            this.index = index;
+            this.strategy = strategy;
+            this.firstInvalid = firstInvalid;
+            this.tokenCount = tokenCount;
+        }
+
+        @Override
+        protected void compute() {
+            if (index > firstInvalid.get()) {
+                return; // an earlier chunk already determines the exception
+            }
+            int expected = tokenCount != null ? tokenCount.getAsInt() : IntTokenizer.countTokens(input, start, end);
+            values = new IntList(expected);
+            try {
+                IntTokenizer.parseInto(input, start, end, values);
+            } catch (NumberFormatException e) {
+                error = e;
+                firstInvalid.accumulateAndGet(index, Math::min);
+                return;
+            }
+            if (strategy != null) {
+                values.sort(strategy);
+            }
+        }
+    }
+}
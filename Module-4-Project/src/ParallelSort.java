@@ -0,0 +1,205 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork-join merge sort for the PROCESSING LAYER on multi-core machines.
+ *
+ * <p>The range is split in halves until the pieces are small enough, every piece is sorted
+ * sequentially with a {@link SortStrategy} (so radix and counting sort still apply per piece),
+ * and sorted pieces are merged back pairwise. Large merges are themselves split in parallel
+ * (binary search on the larger run), so the last merge does not serialise on one core.
+ *
+ * <p>Ranges shorter than the caller's threshold are sorted sequentially on the calling thread;
+ * fork-join overhead only pays off for large inputs.
+ */
+public final class ParallelSort {
+
+    /** Default number of values below which sorting stays sequential. */
+    public static final int DEFAULT_THRESHOLD = 1 << 16;
+
+    /** Smallest piece handed to a sequential sort or merge, whatever the threshold. */
+    private static final int MIN_GRAIN = 1 << 13;
+
+    private ParallelSort() {
+    }
+
+    /**
+     * Sorts {@code values[from, to)} on the common fork-join pool.
+     *
+     * @param values the array to sort
+     * @param from index of the first element, inclusive
+     * @param to index of the last element, exclusive
+     * @param strategy the sequential algorithm for each piece
+     * @param threshold ranges shorter than this are sorted sequentially
+     * @throws IllegalArgumentException if threshold is not positive
+     */
+    public static void sort(int[] values, int from, int to, SortStrategy strategy, int threshold) {
+        sort(values, from, to, strategy, threshold, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Sorts {@code values[from, to)} on the given fork-join pool.
+     *
+     * @param values the array to sort
+     * @param from index of the first element, inclusive
+     * @param to index of the last element, exclusive
+     * @param strategy the sequential algorithm for each piece
+     * @param threshold ranges shorter than this are sorted sequentially
+     * @param pool the pool that runs the sort
+     * @throws IllegalArgumentException if threshold is not positive
+     */
+    public static void sort(int[] values, int from, int to, SortStrategy strategy, int threshold,
+                            ForkJoinPool pool) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Parallel threshold must be positive: " + threshold);
+        }
+        int n = to - from;
+        if (n < threshold || pool.getParallelism() < 2) {
+            strategy.sort(values, from, to);
+            return;
+        }
+        int grain = Math.max(Math.max(threshold, MIN_GRAIN) / 2, n / (pool.getParallelism() << 2));
+        int[] buffer = new int[n];
+        pool.invoke(new SortTask(values, buffer, from, to, from, strategy, grain));
+    }
+
+    /** Sorts {@code a[lo, hi)} in place, using {@code w} (indexed from {@code wLo}) as scratch. */
+    private static final class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] a;
+        private final int[] w;
+        private final int lo;
+        private final int hi;
+        private final int wBase;
+        private final SortStrategy strategy;
+        private final int grain;
+
+        SortTask(int[] a, int[] w, int lo, int hi, int wBase, SortStrategy strategy, int grain) {
+            this.a = a;
+            this.w = w;
+            this.lo = lo;
+            this.hi = hi;
+            this.wBase = wBase;
+            this.strategy = strategy;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= grain) {
+                strategy.sort(a, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask(a, w, lo, mid, wBase, strategy, grain),
+                      new SortTask(a, w, mid, hi, wBase, strategy, grain));
+            if (a[mid - 1] <= a[mid]) {
+                return; // halves already in order
+            }
+            // Move both sorted halves to scratch, then merge them back into a[lo, hi).
+            int wLo = lo - wBase;
+            System.arraycopy(a, lo, w, wLo, hi - lo);
+            new MergeTask(w, wLo, wLo + (mid - lo), w, wLo + (mid - lo), wLo + (hi - lo), a, lo, grain)
+                    .compute();
+        }
+    }
+
+    /** Merges sorted {@code x[xLo, xHi)} and {@code y[yLo, yHi)} into {@code dst} at {@code dLo}. */
+    private static final class MergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] x;
+        private final int xLo;
+        private final int xHi;
+        private final int[] y;
+        private final int yLo;
+        private final int yHi;
+        private final int[] dst;
+        private final int dLo;
+        private final int grain;
+
+        MergeTask(int[] x, int xLo, int xHi, int[] y, int yLo, int yHi, int[] dst, int dLo, int grain) {
+            this.x = x;
+            this.xLo = xLo;
+            this.xHi = xHi;
+            this.y = y;
+            this.yLo = yLo;
+            this.yHi = yHi;
+            this.dst = dst;
+            this.dLo = dLo;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            int xn = xHi - xLo;
+            int yn = yHi - yLo;
+            if (xn + yn <= grain) {
+                merge();
+                return;
+            }
+            // Split the larger run at its midpoint and the other run at the matching position.
+            int xMid;
+            int yMid;
+            if (xn >= yn) {
+                xMid = (xLo + xHi) >>> 1;
+                yMid = lowerBound(y, yLo, yHi, x[xMid]);
+            } else {
+                yMid = (yLo + yHi) >>> 1;
+                xMid = upperBound(x, xLo, xHi, y[yMid]);
+            }
+            int dMid = dLo + (xMid - xLo) + (yMid - yLo);
+            invokeAll(new MergeTask(x, xLo, xMid, y, yLo, yMid, dst, dLo, grain),
+                      new MergeTask(x, xMid, xHi, y, yMid, yHi, dst, dMid, grain));
+        }
+
+        private void merge() {
+            int i = xLo;
+            int j = yLo;
+            int d = dLo;
+            while (i < xHi && j < yHi) {
+                int xi = x[i];
+                int yj = y[j];
+                if (yj < xi) {
+                    dst[d++] = yj;
+                    j++;
+                } else {
+                    dst[d++] = xi;
+                    i++;
+                }
+            }
+            if (i < xHi) {
+                System.arraycopy(x, i, dst, d, xHi - i);
+            } else if (j < yHi) {
+                System.arraycopy(y, j, dst, d, yHi - j);
+            }
+        }
+    }
+
+    /** First index in {@code a[lo, hi)} whose value is not less than {@code key}. */
+    private static int lowerBound(int[] a, int lo, int hi, int key) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** First index in {@code a[lo, hi)} whose value is greater than {@code key}. */
+    private static int upperBound(int[] a, int lo, int hi, int key) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] <= key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,285 @@
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * Partial sorting for the PROCESSING LAYER: the smallest or largest {@code n} values and the
+ * k-th smallest value, without sorting the whole input.
+ *
+ * <p>Consumers that only read the first few values of a sorted result still paid for a full
+ * O(k log k) sort. Here:
+ * <ul>
+ *   <li>{@link TopK} keeps the best {@code n} values seen so far in a bounded primitive binary
+ *       heap. Every value is compared with the heap root once and only better values cost a
+ *       O(log n) sift, so a top-100 query over a long stream runs in close to linear time with
+ *       {@code n} ints of extra memory, and the input never has to be stored as a whole
+ *       (it is an {@link IntConsumer}, so any parser can feed it).</li>
+ *   <li>{@link #select(int[], int, int, int)} is an introselect: quickselect with a
+ *       median-of-three pivot and a three-way partition (so duplicates cannot slow it down),
+ *       falling back to a full sort of the remaining range after too many unlucky pivots.
+ *       Expected O(k), worst case O(k log k).</li>
+ * </ul>
+ */
+public final class PartialSort {
+
+    /** Ranges this short are finished with an insertion sort. */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private PartialSort() {
+    }
+
+    /**
+     * Returns the {@code n} smallest values of {@code values[from, to)} in ascending order
+     * (all of them if there are fewer). The array is not modified.
+     *
+     * @param values the array holding the values
+     * @param from index of the first value
+     * @param to index one past the last value
+     * @param n number of values to return
+     * @return a new array of at most {@code n} values, ascending
+     * @throws IllegalArgumentException if n is negative
+     */
+    public static int[] smallest(int[] values, int from, int to, int n) {
+        return collect(TopK.smallest(n), values, from, to);
+    }
+
+    /**
+     * Returns the {@code n} largest values of {@code values[from, to)} in descending order
+     * (all of them if there are fewer). The array is not modified.
+     *
+     * @param values the array holding the values
+     * @param from index of the first value
+     * @param to index one past the last value
+     * @param n number of values to return
+     * @return a new array of at most {@code n} values, descending
+     * @throws IllegalArgumentException if n is negative
+     */
+    public static int[] largest(int[] values, int from, int to, int n) {
+        return collect(TopK.largest(n), values, from, to);
+    }
+
+    /**
+     * Returns the value that would be at index {@code k} if {@code values[from, to)} were sorted,
+     * and reorders the range so that no value before {@code k} is larger and no value after it
+     * is smaller.
+     *
+     * @param values the array holding the values; reordered in place
+     * @param from index of the first value
+     * @param to index one past the last value
+     * @param k index in {@code [from, to)} of the value to find
+     * @return the k-th smallest value of the range
+     * @throws IndexOutOfBoundsException if the range or k is out of bounds
+     */
+    public static int select(int[] values, int from, int to, int k) {
+        Objects.checkFromToIndex(from, to, values.length);
+        Objects.checkIndex(k - from, to - from);
+        int lo = from;
+        int hi = to - 1;
+        // Introselect: give quickselect about 2 log2(n) partitions before switching to a sort.
+        int budget = 2 * (32 - Integer.numberOfLeadingZeros(to - from));
+        while (lo < hi) {
+            if (hi - lo < INSERTION_SORT_THRESHOLD) {
+                if (!IntKernels.INSTANCE.sortSmall(values, lo, hi + 1)) {
+                    insertionSort(values, lo, hi);
+                }
+                break;
+            }
+            if (budget-- == 0) {
+                Arrays.sort(values, lo, hi + 1);
+                break;
+            }
+            int pivot = medianOfThree(values[lo], values[(lo + hi) >>> 1], values[hi]);
+            // Three-way partition: [lo, lt) < pivot, [lt, gt] == pivot, (gt, hi] > pivot
+            int lt = lo;
+            int gt = hi;
+            int i = lo;
+            while (i <= gt) {
+                int v = values[i];
+                if (v < pivot) {
+                    values[i++] = values[lt];
+                    values[lt++] = v;
+                } else if (v > pivot) {
+                    values[i] = values[gt];
+                    values[gt--] = v;
+                } else {
+                    i++;
+                }
+            }
+            if (k < lt) {
+                hi = lt - 1;
+            } else if (k > gt) {
+                lo = gt + 1;
+            } else {
+                break;
+            }
+        }
+        return values[k];
+    }
+
+    private static int[] collect(TopK top, int[] values, int from, int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        for (int i = from; i < to; i++) {
+            top.accept(values[i]);
+        }
+        return top.toSortedArray();
+    }
+
+    private static int medianOfThree(int a, int b, int c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static void insertionSort(int[] values, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++) {
+            int v = values[i];
+            int j = i - 1;
+            while (j >= lo && values[j] > v) {
+                values[j + 1] = values[j];
+                j--;
+            }
+            values[j + 1] = v;
+        }
+    }
+
+    /**
+     * Streaming top-K accumulator: keeps the {@code n} smallest or largest values passed to
+     * {@link #accept(int)} in a bounded binary heap whose root is the worst value kept.
+     *
+     * <p>Both variants share one max-heap of keys: the smallest values are kept as themselves,
+     * the largest as their bitwise complement {@code ~v}, which reverses the order of all ints
+     * without the overflow of {@code -v}.
+     *
+     * <pre>
+     *   PartialSort.TopK top = PartialSort.TopK.largest(100);
+     *   MappedFileParser.forEach(file, top);
+     *   int[] best = top.toSortedArray();
+     * </pre>
+     */
+    public static final class TopK implements IntConsumer {
+        private final int limit;
+        private final boolean largest;
+        private int[] heap;
+        private int size;
+        private long seen;
+
+        private TopK(int limit, boolean largest) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Negative count: " + limit);
+            }
+            this.limit = limit;
+            this.largest = largest;
+            // grown on demand, so a generous n does not allocate for a short input
+            this.heap = new int[Math.min(limit, 1024)];
+        }
+
+        /**
+         * Creates an accumulator of the {@code n} smallest values.
+         *
+         * @param n number of values to keep
+         * @return the accumulator; {@link #toSortedArray()} is ascending
+         * @throws IllegalArgumentException if n is negative
+         */
+        public static TopK smallest(int n) {
+            return new TopK(n, false);
+        }
+
+        /**
+         * Creates an accumulator of the {@code n} largest values.
+         *
+         * @param n number of values to keep
+         * @return the accumulator; {@link #toSortedArray()} is descending
+         * @throws IllegalArgumentException if n is negative
+         */
+        public static TopK largest(int n) {
+            return new TopK(n, true);
+        }
+
+        /**
+         * Offers one value.
+         *
+         * @param value the value
+         */
+        @Override
+        public void accept(int value) {
+            seen++;
+            int key = largest ? ~value : value;
+            int n = size;
+            if (n < limit) {
+                if (n == heap.length) {
+                    heap = Arrays.copyOf(heap, (int) Math.min(limit, 2L * n));
+                }
+                siftUp(n, key);
+                size = n + 1;
+            } else if (n > 0 && key < heap[0]) {
+                siftDown(key, n);
+            }
+        }
+
+        /**
+         * Returns the number of values offered so far.
+         *
+         * @return the count of accepted values, kept or not
+         */
+        public long seen() {
+            return seen;
+        }
+
+        /**
+         * Returns the number of values currently kept, at most {@code n}.
+         *
+         * @return the size
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the kept values, best first: ascending for {@link #smallest(int)} and
+         * descending for {@link #largest(int)}. The accumulator is unchanged and can keep going.
+         *
+         * @return a new array of {@link #size()} values
+         */
+        public int[] toSortedArray() {
+            int[] result = Arrays.copyOf(heap, size);
+            Arrays.sort(result);
+            if (largest) {
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = ~result[i];
+                }
+            }
+            return result;
+        }
+
+        private void siftUp(int index, int key) {
+            int[] h = heap;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (h[parent] >= key) {
+                    break;
+                }
+                h[index] = h[parent];
+                index = parent;
+            }
+            h[index] = key;
+        }
+
+        /** Replaces the root with {@code key} and restores the heap of {@code n} keys. */
+        private void siftDown(int key, int n) {
+            int[] h = heap;
+            int index = 0;
+            int half = n >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                int right = child + 1;
+                if (right < n && h[right] > h[child]) {
+                    child = right;
+                }
+                if (key >= h[child]) {
+                    break;
+                }
+                h[index] = h[child];
+                index = child;
+            }
+            h[index] = key;
+        }
+    }
+}
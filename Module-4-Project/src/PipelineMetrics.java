@@ -0,0 +1,357 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Per-stage instrumentation of the Input → Parsing → Storage → Processing → Output pipeline.
+ *
+ * <p>Every instrumented stage runs inside a {@link Span}, which measures:
+ * <ul>
+ *   <li>wall time, from {@link System#nanoTime()};</li>
+ *   <li>the number of elements the stage handled and the bytes (or characters) it read or wrote,
+ *       as reported by the stage itself;</li>
+ *   <li>the bytes the calling thread allocated during the stage, from
+ *       {@code com.sun.management.ThreadMXBean.getCurrentThreadAllocatedBytes()}. Work handed
+ *       to other threads (parallel parsing and sorting) is not included; -1 when the JVM does
+ *       not support allocation counting.</li>
+ * </ul>
+ *
+ * <p>A finished span goes to two places:
+ * <ul>
+ *   <li>a {@link Sink}, e.g. a {@link Summary} that aggregates totals and a latency histogram
+ *       per stage and prints them for {@code --stats};</li>
+ *   <li>a custom JFR event, {@code UserInput.PipelineStage}, whenever a flight recording is
+ *       running with it enabled (e.g. {@code java -XX:StartFlightRecording ... UserInput}),
+ *       independent of any sink.</li>
+ * </ul>
+ *
+ * <p>With no sink and no recording, {@link #begin(Stage)} returns a shared no-op span, so
+ * {@link #DISABLED} costs one flag check per stage and no clock or MXBean calls.
+ *
+ * <pre>
+ *   PipelineMetrics.Summary summary = new PipelineMetrics.Summary();
+ *   PipelineMetrics metrics = PipelineMetrics.to(summary);
+ *   int[] sorted = UserInput.processInputToIntArray(line, SortStrategy.AUTO, metrics);
+ *   summary.print(System.err);
+ * </pre>
+ */
+public final class PipelineMetrics {
+
+    /** The stages of the pipeline described in {@link UserInput}. */
+    public enum Stage {
+        /** Reading the raw input, e.g. {@code Scanner.nextLine()}. */
+        INPUT,
+        /** Tokenizing and converting integers; includes storage when the parser grows its own buffer. */
+        PARSING,
+        /** Sizing and allocating the primitive buffer ahead of parsing. */
+        STORAGE,
+        /** Sorting. */
+        PROCESSING,
+        /** Formatting and writing the result. */
+        OUTPUT
+    }
+
+    /**
+     * Receives every finished stage. Implementations called from several threads must be
+     * thread-safe.
+     */
+    @FunctionalInterface
+    public interface Sink {
+
+        /**
+         * Records one finished stage.
+         *
+         * @param stage the stage
+         * @param nanos wall time in nanoseconds
+         * @param elements number of values handled, 0 if not reported
+         * @param bytes bytes or characters read or written, 0 if not reported
+         * @param allocatedBytes bytes allocated by the calling thread, -1 if unavailable
+         */
+        void record(Stage stage, long nanos, long elements, long bytes, long allocatedBytes);
+    }
+
+    /** Records nothing; only JFR events are emitted, while a recording asks for them. */
+    public static final PipelineMetrics DISABLED = new PipelineMetrics(null);
+
+    private static final Span NO_OP = new Span(null, null, null);
+
+    private final Sink sink;
+
+    private PipelineMetrics(Sink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Creates instrumentation that reports every stage to {@code sink}.
+     *
+     * @param sink receives the measurements
+     * @return the instrumentation
+     * @throws NullPointerException if sink is null
+     */
+    public static PipelineMetrics to(Sink sink) {
+        if (sink == null) {
+            throw new NullPointerException("sink");
+        }
+        return new PipelineMetrics(sink);
+    }
+
+    /**
+     * Starts measuring a stage. Use with try-with-resources and report the stage's counts on the
+     * span before it closes.
+     *
+     * @param stage the stage that starts now
+     * @return the running span, or a shared no-op span when nothing would record it
+     */
+    public Span begin(Stage stage) {
+        StageEvent event = new StageEvent();
+        if (sink == null && !event.isEnabled()) {
+            return NO_OP;
+        }
+        return new Span(this, stage, event);
+    }
+
+    /** One running stage; closing it reports the measurements. */
+    public static final class Span implements AutoCloseable {
+        private final PipelineMetrics metrics;
+        private final Stage stage;
+        private final StageEvent event;
+        private final long startNanos;
+        private final long startAllocated;
+        private long elements;
+        private long bytes;
+
+        private Span(PipelineMetrics metrics, Stage stage, StageEvent event) {
+            this.metrics = metrics;
+            this.stage = stage;
+            this.event = event;
+            if (metrics == null) {
+                startNanos = 0;
+                startAllocated = 0;
+                return;
+            }
+            event.begin();
+            startAllocated = allocatedBytes();
+            startNanos = System.nanoTime();
+        }
+
+        /**
+         * Sets the number of values the stage handled.
+         *
+         * @param count number of values
+         * @return this span
+         */
+        public Span elements(long count) {
+            elements = count;
+            return this;
+        }
+
+        /**
+         * Sets the number of bytes, or characters for text already in memory, the stage read or wrote.
+         *
+         * @param count number of bytes
+         * @return this span
+         */
+        public Span bytes(long count) {
+            bytes = count;
+            return this;
+        }
+
+        /** Ends the stage and reports it to the sink and to JFR. */
+        @Override
+        public void close() {
+            if (metrics == null) {
+                return;
+            }
+            long nanos = System.nanoTime() - startNanos;
+            long allocated = startAllocated < 0 ? -1 : allocatedBytes() - startAllocated;
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = stage.name();
+                event.elements = elements;
+                event.bytes = bytes;
+                event.allocated = allocated;
+                event.commit();
+            }
+            if (metrics.sink != null) {
+                metrics.sink.record(stage, nanos, elements, bytes, allocated);
+            }
+        }
+    }
+
+    /**
+     * Aggregating sink: per stage the number of runs, total time, elements, bytes and
+     * allocation, and a latency histogram with power-of-two nanosecond buckets (percentiles are
+     * accurate to within a factor of two, which is enough to tell stages apart). Thread-safe.
+     */
+    public static final class Summary implements Sink {
+        private static final int BUCKETS = 64;
+
+        private final long[] runs = new long[Stage.values().length];
+        private final long[] nanos = new long[runs.length];
+        private final long[] elements = new long[runs.length];
+        private final long[] bytes = new long[runs.length];
+        private final long[] allocated = new long[runs.length];
+        private final long[] maxNanos = new long[runs.length];
+        private final long[][] histogram = new long[runs.length][BUCKETS];
+
+        @Override
+        public synchronized void record(Stage stage, long nanos, long elements, long bytes, long allocatedBytes) {
+            int s = stage.ordinal();
+            runs[s]++;
+            this.nanos[s] += nanos;
+            this.elements[s] += elements;
+            this.bytes[s] += bytes;
+            if (allocatedBytes > 0) {
+                allocated[s] += allocatedBytes;
+            }
+            maxNanos[s] = Math.max(maxNanos[s], nanos);
+            histogram[s][BUCKETS - Long.numberOfLeadingZeros(Math.max(nanos, 1))]++;
+        }
+
+        /**
+         * Returns how often a stage ran.
+         *
+         * @param stage the stage
+         * @return the number of recorded runs
+         */
+        public synchronized long runs(Stage stage) {
+            return runs[stage.ordinal()];
+        }
+
+        /**
+         * Returns the total wall time of a stage.
+         *
+         * @param stage the stage
+         * @return nanoseconds summed over all runs
+         */
+        public synchronized long totalNanos(Stage stage) {
+            return nanos[stage.ordinal()];
+        }
+
+        /**
+         * Returns the elements handled by a stage.
+         *
+         * @param stage the stage
+         * @return elements summed over all runs
+         */
+        public synchronized long elements(Stage stage) {
+            return elements[stage.ordinal()];
+        }
+
+        /**
+         * Returns the bytes read or written by a stage.
+         *
+         * @param stage the stage
+         * @return bytes summed over all runs
+         */
+        public synchronized long bytes(Stage stage) {
+            return bytes[stage.ordinal()];
+        }
+
+        /**
+         * Returns the bytes the calling threads allocated during a stage.
+         *
+         * @param stage the stage
+         * @return allocated bytes summed over all runs; 0 if allocation counting is unsupported
+         */
+        public synchronized long allocatedBytes(Stage stage) {
+            return allocated[stage.ordinal()];
+        }
+
+        /**
+         * Returns an upper bound of the given latency percentile of a stage.
+         *
+         * @param stage the stage
+         * @param percentile between 0 and 100, e.g. 99
+         * @return the bucket bound in nanoseconds, never above the slowest run; 0 if the stage never ran
+         * @throws IllegalArgumentException if percentile is outside [0, 100]
+         */
+        public synchronized long percentileNanos(Stage stage, double percentile) {
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+            }
+            int s = stage.ordinal();
+            long rank = (long) Math.ceil(runs[s] * percentile / 100);
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += histogram[s][b];
+                if (seen >= Math.max(rank, 1)) {
+                    return b == BUCKETS - 1 ? maxNanos[s] : Math.min((1L << b) - 1, maxNanos[s]);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Prints one line per stage that ran: runs, total milliseconds, elements, bytes,
+         * allocated bytes and p50/p99/max latency in microseconds.
+         *
+         * @param out where to print, e.g. {@code System.err} so standard output keeps only the result
+         */
+        public synchronized void print(PrintStream out) {
+            out.println(String.format(Locale.ROOT, "%-10s %6s %10s %12s %14s %14s %10s %10s %10s",
+                    "stage", "runs", "total ms", "elements", "bytes", "alloc bytes", "p50 us", "p99 us", "max us"));
+            for (Stage stage : Stage.values()) {
+                int s = stage.ordinal();
+                if (runs[s] == 0) {
+                    continue;
+                }
+                out.println(String.format(Locale.ROOT, "%-10s %6d %10.3f %12d %14d %14s %10d %10d %10d",
+                        stage.name().toLowerCase(Locale.ROOT), runs[s], nanos[s] / 1e6, elements[s], bytes[s],
+                        Allocation.COUNTER == null ? "n/a" : Long.toString(allocated[s]),
+                        percentileNanos(stage, 50) / 1000, percentileNanos(stage, 99) / 1000, maxNanos[s] / 1000));
+            }
+        }
+    }
+
+    /** The JFR event of one finished stage; its duration is the stage's wall time. */
+    @Name("UserInput.PipelineStage")
+    @Label("Pipeline Stage")
+    @Category("UserInput")
+    @Description("One stage of the Input, Parsing, Storage, Processing, Output pipeline")
+    static class StageEvent extends Event {
+        @Label("Stage")
+        String stage;
+
+        @Label("Elements")
+        long elements;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Allocated")
+        @Description("Bytes allocated by the thread during the stage, -1 if unavailable")
+        @DataAmount
+        long allocated;
+    }
+
+    private static long allocatedBytes() {
+        return Allocation.COUNTER == null ? -1 : Allocation.COUNTER.getCurrentThreadAllocatedBytes();
+    }
+
+    /** Loaded with the first live span, so {@link #DISABLED} never starts the management beans. */
+    private static final class Allocation {
+        /** Null when the JVM cannot count allocated bytes per thread. */
+        static final com.sun.management.ThreadMXBean COUNTER = counter();
+
+        private static com.sun.management.ThreadMXBean counter() {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (threads instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+                if (counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled()) {
+                    return counter;
+                }
+            }
+            return null;
+        }
+    }
+}
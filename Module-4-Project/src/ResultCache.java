@@ -0,0 +1,270 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in cache of sorted results for input lines that repeat (retries, fan-out to several
+ * services), so a repeated line costs a hash and a copy instead of parsing and sorting again.
+ *
+ * <p>Lines are keyed by a 64-bit FNV-1a hash of their characters. Every entry keeps its line,
+ * and a hit is only reported when the stored line equals the requested one, so a hash collision
+ * is a miss, never a wrong answer. The sorted values are kept as a plain {@code int[]} (4 bytes
+ * per value, instead of ~20 for a {@code List<Integer>}), and callers always get their own copy,
+ * {@link InputProcessor.ResultSink}s included, so nothing a caller does to its result can change
+ * a later hit.
+ * Lines with invalid tokens are never cached; they throw on every call.
+ *
+ * <p>The cache is bounded by an estimate of its memory: the characters of the lines, the sorted
+ * values and a fixed overhead per entry. It is split into {@link #STRIPES} independent stripes,
+ * chosen by the hash, each an access-ordered {@link LinkedHashMap} under its own lock with
+ * {@code 1/STRIPES} of the budget. When a stripe is over its budget, its least recently used
+ * entries are evicted. Concurrent callers only contend when their lines land in the same
+ * stripe, and a lock is never held while a line is parsed or sorted; two threads missing on the
+ * same line at the same time both sort it, and the second result replaces the first.
+ *
+ * <pre>
+ *   ResultCache cache = new ResultCache(ResultCache.DEFAULT_MAX_BYTES);
+ *   List&lt;Integer&gt; sorted = UserInput.processInput(line, cache);
+ *   System.err.println(cache);   // ResultCache[entries=.., hits=.., misses=.., evictions=..]
+ * </pre>
+ */
+public final class ResultCache {
+
+    /** Default memory budget: 64 MB. */
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    /** Number of independently locked stripes; a power of two. */
+    static final int STRIPES = 16;
+
+    /** Estimated bytes per entry besides its characters and values (map node, key, arrays). */
+    static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final long stripeBytes;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxBytes memory budget; an entry larger than {@code maxBytes / STRIPES} is not cached
+     * @throws IllegalArgumentException if maxBytes is not positive
+     */
+    public ResultCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxBytes);
+        }
+        stripeBytes = Math.max(1, maxBytes / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Returns the sorted values of a line, like {@link UserInput#processInput(String)}.
+     *
+     * @param line integers separated by spaces or commas
+     * @return sorted list of integers, owned by the caller
+     * @throws NumberFormatException if the line contains non-numeric values
+     */
+    public List<Integer> process(CharSequence line) {
+        int[] sorted = processToIntArray(line);
+        return new IntList(sorted, sorted.length).asList();
+    }
+
+    /**
+     * Returns the sorted values of a line, like {@link UserInput#processInputToIntArray(String)},
+     * parsing and sorting with the current thread's {@link InputProcessor} on a miss.
+     *
+     * @param line integers separated by spaces or commas
+     * @return sorted array of integers, owned by the caller
+     * @throws NumberFormatException if the line contains non-numeric values
+     */
+    public int[] processToIntArray(CharSequence line) {
+        return processToIntArray(line, InputProcessor.forCurrentThread());
+    }
+
+    /**
+     * Hands the sorted values of a line to {@code sink}, from the cache or from {@code processor}.
+     *
+     * @param line integers separated by spaces or commas
+     * @param processor parses and sorts the line on a miss
+     * @param sink receives the sorted values in an array that the cache does not keep; it is
+     *             only valid during the call
+     * @return the number of values in the line
+     * @throws NumberFormatException if the line contains non-numeric values
+     */
+    public int process(CharSequence line, InputProcessor processor, InputProcessor.ResultSink sink) {
+        long hash = hash(line);
+        int[] cached = lookup(line, hash);
+        if (cached != null) {
+            // the sink may reorder its argument, like the processor's buffer, so it gets a copy
+            sink.accept(cached.clone(), cached.length);
+            return cached.length;
+        }
+        return processor.process(line, (sorted, size) -> {
+            store(line, hash, Arrays.copyOf(sorted, size));
+            sink.accept(sorted, size);
+        });
+    }
+
+    /**
+     * Returns the number of lines answered from the cache.
+     *
+     * @return the hit count
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lines that had to be parsed and sorted, including rejected lines.
+     *
+     * @return the miss count
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of entries removed to stay within the memory budget.
+     *
+     * @return the eviction count
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the number of cached lines.
+     *
+     * @return the entry count
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.entries.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the estimated memory of the cached entries.
+     *
+     * @return bytes, at most the budget given to the constructor
+     */
+    public long weightBytes() {
+        long weight = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                weight += stripe.weight;
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Removes every entry. The counters keep running.
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.entries.clear();
+                stripe.weight = 0;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ResultCache[entries=" + size() + ", bytes=" + weightBytes() + ", hits=" + hits()
+                + ", misses=" + misses() + ", evictions=" + evictions() + "]";
+    }
+
+    int[] processToIntArray(CharSequence line, InputProcessor processor) {
+        long hash = hash(line);
+        int[] cached = lookup(line, hash);
+        if (cached != null) {
+            return cached.clone();
+        }
+        int[] sorted = processor.processToIntArray(line);
+        store(line, hash, sorted.clone());
+        return sorted;
+    }
+
+    /** 64-bit FNV-1a over the UTF-16 characters. */
+    static long hash(CharSequence line) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0, n = line.length(); i < n; i++) {
+            hash = (hash ^ line.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /** Returns the cached values of the line, or null (counted as a miss). */
+    private int[] lookup(CharSequence line, long hash) {
+        Stripe stripe = stripeFor(hash);
+        Entry entry;
+        synchronized (stripe) {
+            entry = stripe.entries.get(hash);
+        }
+        // the entry is immutable, so the line is compared outside the lock
+        if (entry != null && entry.line.contentEquals(line)) {
+            hits.increment();
+            return entry.sorted;
+        }
+        misses.increment();
+        return null;
+    }
+
+    private void store(CharSequence line, long hash, int[] sorted) {
+        Entry entry = new Entry(line.toString(), sorted);
+        if (entry.weight > stripeBytes) {
+            return;
+        }
+        Stripe stripe = stripeFor(hash);
+        synchronized (stripe) {
+            Entry previous = stripe.entries.put(hash, entry);
+            if (previous != null) {
+                stripe.weight -= previous.weight;
+            }
+            stripe.weight += entry.weight;
+            Iterator<Entry> eldest = stripe.entries.values().iterator();
+            while (stripe.weight > stripeBytes) {
+                Entry evicted = eldest.next();
+                eldest.remove();
+                stripe.weight -= evicted.weight;
+                evictions.increment();
+            }
+        }
+    }
+
+    private Stripe stripeFor(long hash) {
+        return stripes[(int) (hash >>> 32 ^ hash) & (STRIPES - 1)];
+    }
+
+    /** One access-ordered LRU map; guarded by its own monitor. */
+    private static final class Stripe {
+        final Map<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        long weight;
+    }
+
+    /** A cached line and its sorted values; never modified after construction. */
+    private static final class Entry {
+        final String line;
+        final int[] sorted;
+        final long weight;
+
+        Entry(String line, int[] sorted) {
+            this.line = line;
+            this.sorted = sorted;
+            this.weight = ENTRY_OVERHEAD_BYTES + 2L * line.length() + 4L * sorted.length;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.SocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load generator for {@link SortServer}: many concurrent connections sending small sort requests.
+ *
+ * <p>Every connection is opened first; then all of them start together and send their requests
+ * one after another, each a random line of integers. Every response is checked against
+ * {@link Arrays#sort(int[])}, and the latency of each request is recorded. Connections run on
+ * virtual threads when the runtime has them (see {@link SortServer#usesVirtualThreads()}).
+ *
+ * <pre>
+ *   java UserInput --serve=7070 &amp;
+ *   java SortLoadGenerator 7070 10000 100 16
+ * </pre>
+ */
+public final class SortLoadGenerator {
+
+    /** Outcome of one load run. */
+    public static final class Report {
+        private final long requests;
+        private final long failures;
+        private final long elapsedNanos;
+        private final long[] latencies;
+
+        Report(long requests, long failures, long elapsedNanos, long[] latencies) {
+            this.requests = requests;
+            this.failures = failures;
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = latencies;
+        }
+
+        /**
+         * Returns the number of requests answered correctly.
+         *
+         * @return the successful request count
+         */
+        public long requests() {
+            return requests;
+        }
+
+        /**
+         * Returns the number of wrong answers plus requests lost to connection errors.
+         *
+         * @return the failure count
+         */
+        public long failures() {
+            return failures;
+        }
+
+        /**
+         * Returns successful requests per second over the whole run.
+         *
+         * @return the throughput
+         */
+        public double requestsPerSecond() {
+            return requests * 1e9 / Math.max(1, elapsedNanos);
+        }
+
+        /**
+         * Returns a latency percentile of the successful requests.
+         *
+         * @param percentile between 0 and 100
+         * @return the latency in microseconds, or 0 if no request succeeded
+         */
+        public double latencyMicros(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(percentile / 100 * latencies.length) - 1);
+            return latencies[Math.max(0, index)] / 1e3;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests, %d failures, %.0f req/s, latency p50 %.0f us, p99 %.0f us, max %.0f us",
+                    requests, failures, requestsPerSecond(),
+                    latencyMicros(50), latencyMicros(99), latencyMicros(100));
+        }
+    }
+
+    private SortLoadGenerator() {
+    }
+
+    /**
+     * Runs a load test against a running server and prints the report.
+     *
+     * @param args {@code <port|unix:path> [connections] [requestsPerConnection] [valuesPerRequest]},
+     *             defaults 1000, 100 and 16
+     * @throws Exception if the load test cannot run
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java SortLoadGenerator <port|unix:path> [connections] "
+                    + "[requestsPerConnection] [valuesPerRequest]");
+            return;
+        }
+        SocketAddress address = SortServer.parseAddress(args[0]);
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int values = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+        System.out.println((SortServer.usesVirtualThreads() ? "Virtual" : "Platform") + " threads, "
+                + connections + " connections x " + requests + " requests x " + values + " values");
+        System.out.println(run(address, connections, requests, values));
+    }
+
+    /**
+     * Opens {@code connections} connections, then sends {@code requestsPerConnection} random lines
+     * of {@code valuesPerRequest} integers on each of them concurrently.
+     *
+     * @param address the server address
+     * @param connections number of concurrent connections
+     * @param requestsPerConnection requests sent one after another on each connection
+     * @param valuesPerRequest integers per request line
+     * @return the report
+     * @throws InterruptedException if interrupted while waiting for the connections
+     */
+    public static Report run(SocketAddress address, int connections, int requestsPerConnection,
+            int valuesPerRequest) throws InterruptedException {
+        long[] latencies = new long[connections * requestsPerConnection];
+        AtomicLong completed = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        CountDownLatch connected = new CountDownLatch(connections);
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(connections);
+        ExecutorService clients = SortServer.newThreadPerTaskExecutor("sort-load");
+        for (int c = 0; c < connections; c++) {
+            final int connection = c;
+            clients.execute(() -> {
+                try {
+                    runConnection(address, connection, requestsPerConnection, valuesPerRequest,
+                            latencies, completed, failures, connected, go);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        connected.await();
+        long start = System.nanoTime();
+        go.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        clients.shutdown();
+        clients.awaitTermination(1, TimeUnit.MINUTES);
+
+        int successes = (int) completed.get();
+        long[] measured = new long[successes];
+        int n = 0;
+        for (long latency : latencies) {
+            if (latency > 0 && n < successes) {
+                measured[n++] = latency;
+            }
+        }
+        Arrays.sort(measured, 0, n);
+        return new Report(n, failures.get(), elapsed, Arrays.copyOf(measured, n));
+    }
+
+    private static void runConnection(SocketAddress address, int connection, int requests, int values,
+            long[] latencies, AtomicLong completed, AtomicLong failures,
+            CountDownLatch connected, CountDownLatch go) {
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(address);
+        } catch (IOException e) {
+            failures.addAndGet(requests);
+            connected.countDown();
+            return;
+        }
+        connected.countDown();
+        int done = 0;
+        try (SocketChannel open = channel) {
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(Channels.newInputStream(open), StandardCharsets.UTF_8));
+            OutputStream out = Channels.newOutputStream(open);
+            Random random = new Random(connection);
+            int[] numbers = new int[values];
+            StringBuilder line = new StringBuilder();
+            go.await();
+            for (; done < requests; done++) {
+                line.setLength(0);
+                for (int i = 0; i < values; i++) {
+                    numbers[i] = random.nextInt(2001) - 1000;
+                    line.append(numbers[i]).append(i % 2 == 0 ? ' ' : ',');
+                }
+                line.append('\n');
+                byte[] request = line.toString().getBytes(StandardCharsets.UTF_8);
+                long sent = System.nanoTime();
+                out.write(request);
+                String response = in.readLine();
+                long latency = System.nanoTime() - sent;
+                Arrays.sort(numbers);
+                if (Arrays.toString(numbers).equals(response)) {
+                    latencies[connection * requests + done] = Math.max(1, latency);
+                    completed.incrementAndGet();
+                } else {
+                    failures.incrementAndGet();
+                }
+            }
+        } catch (IOException e) {
+            failures.addAndGet(requests - done);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failures.addAndGet(requests - done);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * How the PROCESSING LAYER ordered a range: the result of the presortedness check that runs
+ * before every {@link SortStrategy}.
+ *
+ * <p>Many inputs arrive already ascending, descending, or as a few sorted pieces appended to
+ * each other (e.g. log batches or concatenated exports). Before sorting, one left-to-right scan
+ * splits the range into natural runs, each either non-decreasing or non-increasing, and stops as
+ * soon as there are more than {@link #MAX_RUNS} of them. Random input has a run break every two
+ * or three values, so the scan gives up after a few dozen elements and costs nothing measurable.
+ * Otherwise:
+ * <ul>
+ *   <li>{@link #ALREADY_SORTED} - one ascending run: nothing is moved;</li>
+ *   <li>{@link #REVERSED} - one descending run: reversed in place, O(k);</li>
+ *   <li>{@link #RUN_MERGE} - up to {@link #MAX_RUNS} runs in a range of at least
+ *       {@link #MIN_MERGE_LENGTH} values: descending runs are reversed and neighbouring runs
+ *       merged pairwise, O(k log runs) with k ints of scratch space;</li>
+ *   <li>{@link #FULL_SORT} - anything else goes to the chosen {@link SortStrategy}.</li>
+ * </ul>
+ * Equal ints cannot be told apart, so a non-increasing run may be reversed even though it holds
+ * duplicates; the result is always the same as a full sort.
+ */
+public enum SortPath {
+
+    /** The range was already in ascending order. */
+    ALREADY_SORTED,
+
+    /** The range was in descending order and was reversed. */
+    REVERSED,
+
+    /** The range consisted of a few sorted runs, which were merged. */
+    RUN_MERGE,
+
+    /** The range was sorted by the {@link SortStrategy}. */
+    FULL_SORT;
+
+    /** More runs than this go to the full sort; merging them would take more than 4 passes. */
+    static final int MAX_RUNS = 16;
+
+    /**
+     * Ranges shorter than this are only checked for a single run; with several runs they are
+     * cheaper to sort directly ({@link java.util.Arrays#sort(int[], int, int)} uses insertion sort
+     * at this size).
+     */
+    static final int MIN_MERGE_LENGTH = 32;
+
+    /**
+     * Sorts {@code values[from, to)} if it consists of one natural run, or of at most
+     * {@link #MAX_RUNS} runs and at least {@link #MIN_MERGE_LENGTH} values.
+     *
+     * @param values the array to sort
+     * @param from index of the first element, inclusive
+     * @param to index of the last element, exclusive
+     * @param buffers reusable run bounds and scratch space for the merge, or null to allocate them
+     * @return the path taken, or {@link #FULL_SORT} if the range was left untouched for the
+     *         caller to sort
+     */
+    static SortPath sortRuns(int[] values, int from, int to, SortStrategy.Buffers buffers) {
+        int maxRuns = to - from < MIN_MERGE_LENGTH ? 1 : MAX_RUNS;
+        int[] bounds = buffers == null ? new int[MAX_RUNS + 1] : buffers.runBounds;
+        int runs = 0;
+        int descendingRuns = 0;
+        boolean firstDescending = false;
+        bounds[0] = from;
+        int i = from;
+        while (i < to) {
+            if (runs == maxRuns) {
+                return FULL_SORT;
+            }
+            int start = i++;
+            if (i < to && values[i] < values[start]) {
+                while (i < to && values[i] <= values[i - 1]) {
+                    i++;
+                }
+                descendingRuns++;
+                if (runs == 0) {
+                    firstDescending = true;
+                }
+            } else {
+                while (i < to && values[i] >= values[i - 1]) {
+                    i++;
+                }
+            }
+            bounds[++runs] = i;
+        }
+        if (runs == 1) {
+            if (!firstDescending) {
+                return ALREADY_SORTED;
+            }
+            reverse(values, from, to);
+            return REVERSED;
+        }
+        if (descendingRuns > 0) {
+            // a descending run is recognised by its first two values being in descending order
+            for (int r = 0; r < runs; r++) {
+                int lo = bounds[r];
+                if (bounds[r + 1] - lo > 1 && values[lo + 1] < values[lo]) {
+                    reverse(values, lo, bounds[r + 1]);
+                }
+            }
+        }
+        merge(values, from, to, bounds, runs, buffers);
+        return RUN_MERGE;
+    }
+
+    private static void reverse(int[] values, int from, int to) {
+        for (int lo = from, hi = to - 1; lo < hi; lo++, hi--) {
+            int t = values[lo];
+            values[lo] = values[hi];
+            values[hi] = t;
+        }
+    }
+
+    /**
+     * Bottom-up merge of adjacent runs, alternating between {@code values} and the scratch array.
+     * {@code bounds[0..runs]} holds the run limits as indexes into {@code values}.
+     */
+    private static void merge(int[] values, int from, int to, int[] bounds, int runs, SortStrategy.Buffers buffers) {
+        int n = to - from;
+        int[] src = values;
+        int srcShift = 0;
+        int[] dst = buffers == null ? new int[n] : buffers.scratch(n);
+        int dstShift = -from; // index into dst = index into values + shift
+        while (runs > 1) {
+            int merged = 0;
+            for (int r = 0; r < runs; r += 2) {
+                int lo = bounds[r];
+                int mid = bounds[r + 1];
+                int hi = r + 2 <= runs ? bounds[r + 2] : mid;
+                int a = lo + srcShift;
+                int aEnd = mid + srcShift;
+                int b = aEnd;
+                int bEnd = hi + srcShift;
+                int out = lo + dstShift;
+                while (a < aEnd && b < bEnd) {
+                    // conditional moves instead of a branch per value, which random runs mispredict
+                    int x = src[a];
+                    int y = src[b];
+                    int takeB = y < x ? 1 : 0;
+                    dst[out++] = takeB != 0 ? y : x;
+                    b += takeB;
+                    a += 1 - takeB;
+                }
+                System.arraycopy(src, a, dst, out, aEnd - a);
+                out += aEnd - a;
+                System.arraycopy(src, b, dst, out, bEnd - b);
+                bounds[++merged] = hi;
+            }
+            runs = merged;
+            int[] swap = src;
+            src = dst;
+            dst = swap;
+            int swapShift = srcShift;
+            srcShift = dstShift;
+            dstShift = swapShift;
+        }
+        if (src != values) {
+            System.arraycopy(src, from + srcShift, values, from, n);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-running server mode: sorts lines of integers sent over a local TCP or Unix-domain socket.
+ *
+ * <p>Running {@code UserInput.main} once per request pays JVM startup and JIT warm-up every time.
+ * The server keeps one JVM warm and serves any number of connections. The protocol is line
+ * based, in UTF-8: every request line gets exactly one response line, either the sorted values
+ * in the usual {@code [a, b, c]} format or {@code ERROR <message>} when the line is rejected
+ * (the {@link NumberFormatException} message {@link UserInput#processInput(String)} would throw,
+ * or the {@link IllegalArgumentException} of a strategy that cannot sort it, such as
+ * {@link SortStrategy#COUNTING} on too wide a range); the connection stays open either way.
+ * Clients may pipeline requests; responses are flushed whenever no further request is buffered.
+ *
+ * <p>Each connection is served by its own thread doing plain blocking I/O, with its own
+ * {@link InputProcessor} and {@link IntListWriter}, so steady-state requests reuse their parse,
+ * sort and output buffers. On JDK 21 and later these are virtual threads, which makes tens of
+ * thousands of concurrent connections cheap. On older runtimes (the project targets JDK 17) the
+ * server falls back to platform threads with small stacks; see {@link #usesVirtualThreads()}.
+ * An optional {@link ResultCache}, shared by all connections, answers repeated lines without
+ * parsing or sorting them again.
+ *
+ * <pre>
+ *   try (SortServer server = SortServer.start(SortServer.parseAddress("7070"), SortStrategy.AUTO)) {
+ *       server.awaitTermination();
+ *   }
+ * </pre>
+ */
+public final class SortServer implements Closeable {
+
+    /** Pending-connection queue length, sized for bursts of many small clients. */
+    static final int BACKLOG = 4096;
+
+    /** Stack size for the platform-thread fallback; connection handlers need very little. */
+    private static final long FALLBACK_STACK_BYTES = 256 << 10;
+
+    /** Looked up reflectively so the project still builds and runs on JDK 17. */
+    private static final Method VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+
+    private final ServerSocketChannel server;
+    private final SocketAddress address;
+    private final SortStrategy strategy;
+    private final ResultCache cache;
+    private final ExecutorService connections;
+    private final Set<SocketChannel> open = ConcurrentHashMap.newKeySet();
+    private final AtomicLong served = new AtomicLong();
+    private final Thread acceptor;
+
+    private SortServer(ServerSocketChannel server, SortStrategy strategy, ResultCache cache) throws IOException {
+        this.server = server;
+        this.address = server.getLocalAddress();
+        this.strategy = strategy;
+        this.cache = cache;
+        this.connections = newThreadPerTaskExecutor("sort-connection");
+        this.acceptor = new Thread(this::acceptLoop, "sort-server-acceptor");
+    }
+
+    /**
+     * Binds the address and starts accepting connections on a background thread.
+     *
+     * @param address an {@link InetSocketAddress} (port 0 picks a free port) or a
+     *                {@link UnixDomainSocketAddress}; see {@link #parseAddress(String)}
+     * @param strategy the sorting algorithm for every request
+     * @return the running server
+     * @throws IOException if the address cannot be bound
+     */
+    public static SortServer start(SocketAddress address, SortStrategy strategy) throws IOException {
+        return start(address, strategy, null);
+    }
+
+    /**
+     * Binds the address and starts accepting connections, answering repeated lines from
+     * {@code cache}.
+     *
+     * @param address the address to bind; see {@link #start(SocketAddress, SortStrategy)}
+     * @param strategy the sorting algorithm for every request that misses the cache
+     * @param cache results shared by all connections, or null to sort every line
+     * @return the running server
+     * @throws IOException if the address cannot be bound
+     */
+    public static SortServer start(SocketAddress address, SortStrategy strategy, ResultCache cache) throws IOException {
+        ServerSocketChannel channel = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                : ServerSocketChannel.open();
+        try {
+            channel.bind(address, BACKLOG);
+            SortServer server = new SortServer(channel, strategy, cache);
+            server.acceptor.start();
+            return server;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Parses {@code <port>} (loopback TCP) or {@code unix:<path>} (Unix-domain socket).
+     *
+     * @param spec the address specification
+     * @return the socket address
+     * @throws IllegalArgumentException if the port is not a number between 0 and 65535
+     */
+    public static SocketAddress parseAddress(String spec) {
+        if (spec.startsWith("unix:")) {
+            return UnixDomainSocketAddress.of(spec.substring("unix:".length()));
+        }
+        try {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(spec));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a port or unix:<path>: " + spec, e);
+        }
+    }
+
+    /**
+     * Returns whether connections run on virtual threads (JDK 21+) rather than platform threads.
+     *
+     * @return true if virtual threads are available
+     */
+    public static boolean usesVirtualThreads() {
+        return VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /**
+     * Returns the bound address, including the chosen port when started with port 0.
+     *
+     * @return the local address
+     */
+    public SocketAddress address() {
+        return address;
+    }
+
+    /**
+     * Returns the number of request lines answered so far.
+     *
+     * @return the request count
+     */
+    public long requestsServed() {
+        return served.get();
+    }
+
+    /**
+     * Blocks until the server is closed.
+     *
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public void awaitTermination() throws InterruptedException {
+        acceptor.join();
+    }
+
+    /**
+     * Stops accepting, closes every open connection and removes a Unix-domain socket file.
+     *
+     * @throws IOException if the server socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (SocketChannel channel : open) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // closing anyway
+            }
+        }
+        connections.shutdown();
+        try {
+            acceptor.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (address instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+        }
+    }
+
+    /**
+     * Creates an executor that runs every task on a new virtual thread when the runtime has them,
+     * and otherwise on a new small-stack platform thread. Also used by {@link SortLoadGenerator}.
+     */
+    static ExecutorService newThreadPerTaskExecutor(String name) {
+        ExecutorService virtual = virtualThreadExecutor();
+        if (virtual != null) {
+            return virtual;
+        }
+        AtomicLong ids = new AtomicLong();
+        ThreadFactory factory = task -> {
+            Thread thread = new Thread(null, task, name + "-" + ids.incrementAndGet(), FALLBACK_STACK_BYTES);
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newCachedThreadPool(factory);
+    }
+
+    /** A new {@code Executors.newVirtualThreadPerTaskExecutor()}, or null before JDK 21. */
+    private static ExecutorService virtualThreadExecutor() {
+        if (VIRTUAL_THREAD_EXECUTOR == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Method findVirtualThreadExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private void acceptLoop() {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = server.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (!server.isOpen()) {
+                    return;
+                }
+                // e.g. the client reset the connection, or no file descriptors are left: back off
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                continue;
+            }
+            open.add(channel);
+            if (!server.isOpen()) {
+                close(channel); // close() may already have swept the open set
+                return;
+            }
+            try {
+                connections.execute(() -> serve(channel));
+            } catch (RuntimeException e) {
+                close(channel); // rejected during shutdown
+            }
+        }
+    }
+
+    /** Answers every line of one connection until the client closes it. */
+    private void serve(SocketChannel channel) {
+        try {
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            IntListWriter out = new IntListWriter(Channels.newOutputStream(channel),
+                    IntListWriter.DEFAULT_BUFFER_SIZE, StandardCharsets.UTF_8);
+            InputProcessor processor = new InputProcessor(strategy);
+            InputProcessor.ResultSink respond = (sorted, size) -> {
+                try {
+                    out.writeList(sorted, 0, size);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+            String line;
+            while ((line = in.readLine()) != null) {
+                try {
+                    if (cache != null) {
+                        cache.process(line, processor, respond);
+                    } else {
+                        processor.process(line, respond);
+                    }
+                } catch (IllegalArgumentException e) {
+                    // NumberFormatException for bad tokens, or e.g. a range too wide for --sort=counting
+                    out.write("ERROR " + e.getMessage());
+                }
+                out.write("\n");
+                served.incrementAndGet();
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (IOException | UncheckedIOException e) {
+            // client went away; nothing to answer
+        } finally {
+            close(channel);
+        }
+    }
+
+    private void close(SocketChannel channel) {
+        open.remove(channel);
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // already closed
+        }
+    }
+}
@@ -0,0 +1,254 @@
+import java.util.Arrays;
+
+/**
+ * Pluggable sorting algorithms for the PROCESSING LAYER of the pipeline (Strategy Pattern).
+ *
+ * <p>All strategies sort {@code values[from, to)} of a primitive {@code int[]} in ascending order
+ * and produce identical results; they differ only in cost:
+ * <ul>
+ *   <li>{@link #COMPARISON} - {@link Arrays#sort(int[], int, int)}, O(k log k), no extra memory.</li>
+ *   <li>{@link #RADIX} - LSD radix sort on 8-bit digits of {@code value - min}, O(k) per pass with
+ *       only as many passes as the value range needs (1 to 4), k extra ints.</li>
+ *   <li>{@link #COUNTING} - counting sort, O(k + range), range + 1 extra ints; only sensible when
+ *       {@code max - min} is small, e.g. IDs or bucketed timestamps.</li>
+ *   <li>{@link #AUTO} - one min/max pre-pass, then picks one of the above from the size and range.</li>
+ * </ul>
+ * Every strategy first checks for presorted input and skips the sort, reverses the range or
+ * merges its few sorted runs when it can; {@link #sort(int[], int, int)} reports which of these
+ * happened as a {@link SortPath}. Ranges that fit in one vector register, and the min/max
+ * pre-pass, use SIMD kernels when the Vector API is available (see {@link IntKernels}).
+ */
+public enum SortStrategy {
+
+    /** Dual-pivot quicksort from {@link Arrays}. */
+    COMPARISON {
+        @Override
+        void sort(int[] values, int from, int to, int min, int max, Buffers buffers) {
+            Arrays.sort(values, from, to);
+        }
+    },
+
+    /** LSD radix sort, 8 bits per pass. */
+    RADIX {
+        @Override
+        void sort(int[] values, int from, int to, int min, int max, Buffers buffers) {
+            radixSort(values, from, to, min, max, buffers);
+        }
+    },
+
+    /** Counting sort over {@code [min, max]}. */
+    COUNTING {
+        @Override
+        void sort(int[] values, int from, int to, int min, int max, Buffers buffers) {
+            countingSort(values, from, to, min, countingRange(min, max), buffers);
+        }
+    },
+
+    /** Chooses {@link #COUNTING}, {@link #RADIX} or {@link #COMPARISON} from a min/max pre-pass. */
+    AUTO {
+        @Override
+        void sort(int[] values, int from, int to, int min, int max, Buffers buffers) {
+            choose(to - from, min, max).sort(values, from, to, min, max, buffers);
+        }
+    };
+
+    /** Below this many values the comparison sort always wins. */
+    static final int SMALL_INPUT = 256;
+
+    /** From this many values radix sort beats the comparison sort on wide ranges. */
+    static final int RADIX_THRESHOLD = 4096;
+
+    /** Upper bound for the counting table (16M ints = 64 MB). */
+    static final int MAX_COUNTING_RANGE = 1 << 24;
+
+    /**
+     * Sorts {@code values[from, to)} in ascending order.
+     *
+     * @param values the array to sort
+     * @param from index of the first element, inclusive
+     * @param to index of the last element, exclusive
+     * @return how the range was ordered: already sorted, reversed, merged from a few runs, or
+     *         fully sorted by this strategy (see {@link SortPath})
+     * @throws IllegalArgumentException for {@link #COUNTING} when the value range is too wide,
+     *         checked before the presorted shortcuts so it does not depend on the input order
+     */
+    public SortPath sort(int[] values, int from, int to) {
+        return sort(values, from, to, null);
+    }
+
+    /**
+     * Sorts {@code values[from, to)} in ascending order, taking scratch space from {@code buffers}.
+     *
+     * @param values the array to sort
+     * @param from index of the first element, inclusive
+     * @param to index of the last element, exclusive
+     * @param buffers reusable scratch arrays, or null to allocate them for this call
+     * @return how the range was ordered
+     * @throws IllegalArgumentException for {@link #COUNTING} when the value range is too wide,
+     *         checked before the presorted shortcuts so it does not depend on the input order
+     */
+    SortPath sort(int[] values, int from, int to, Buffers buffers) {
+        if (to - from < 2) {
+            return SortPath.ALREADY_SORTED;
+        }
+        long minMax = 0;
+        if (this == COUNTING) {
+            // the range limit applies to every input, not only to those that reach the counting table
+            minMax = IntKernels.INSTANCE.minMax(values, from, to);
+            countingRange((int) (minMax >> 32), (int) minMax);
+        }
+        // Presorted input (ascending, descending or a few runs) is finished in O(k) or
+        // O(k log runs); random input leaves this check within a few dozen elements
+        SortPath path = SortPath.sortRuns(values, from, to, buffers);
+        if (path != SortPath.FULL_SORT) {
+            return path;
+        }
+        // A whole input that fits in one vector register (8 or 16 ints) goes through a SIMD sorting
+        // network; larger inputs are sorted below without being split into such ranges
+        if (IntKernels.INSTANCE.sortSmall(values, from, to)) {
+            return path;
+        }
+        if (this == COMPARISON) {
+            Arrays.sort(values, from, to);
+            return path;
+        }
+        if (this != COUNTING) {
+            minMax = IntKernels.INSTANCE.minMax(values, from, to);
+        }
+        int min = (int) (minMax >> 32);
+        int max = (int) minMax;
+        if (min == max) {
+            return path;
+        }
+        sort(values, from, to, min, max, buffers);
+        return path;
+    }
+
+    /**
+     * Sorts {@code values[from, to)} given its already-known minimum and maximum.
+     */
+    abstract void sort(int[] values, int from, int to, int min, int max, Buffers buffers);
+
+    /**
+     * Picks the cheapest concrete strategy for {@code size} values spanning {@code [min, max]}.
+     *
+     * @param size number of values to sort
+     * @param min smallest value
+     * @param max largest value
+     * @return {@link #COUNTING}, {@link #RADIX} or {@link #COMPARISON}
+     */
+    static SortStrategy choose(int size, int min, int max) {
+        if (size < SMALL_INPUT) {
+            return COMPARISON;
+        }
+        long range = (long) max - min + 1;
+        if (range <= size && range <= MAX_COUNTING_RANGE) {
+            return COUNTING;
+        }
+        return size >= RADIX_THRESHOLD ? RADIX : COMPARISON;
+    }
+
+    /**
+     * Returns the size of the counting table for {@code [min, max]}.
+     *
+     * @throws IllegalArgumentException if the range exceeds {@link #MAX_COUNTING_RANGE}
+     */
+    private static int countingRange(int min, int max) {
+        long range = (long) max - min + 1;
+        if (range > MAX_COUNTING_RANGE) {
+            throw new IllegalArgumentException("Value range " + range
+                    + " is too wide for counting sort (limit " + MAX_COUNTING_RANGE + ")");
+        }
+        return (int) range;
+    }
+
+    private static void countingSort(int[] values, int from, int to, int min, int range, Buffers buffers) {
+        int[] counts = buffers == null ? new int[range] : buffers.table(range);
+        for (int i = from; i < to; i++) {
+            counts[values[i] - min]++;
+        }
+        int out = from;
+        for (int k = 0; k < range; k++) {
+            int value = k + min;
+            for (int c = counts[k]; c > 0; c--) {
+                values[out++] = value;
+            }
+        }
+    }
+
+    private static void radixSort(int[] values, int from, int to, int min, int max, Buffers buffers) {
+        int n = to - from;
+        // Keys are value - min as unsigned ints, so only the bytes the range actually uses are sorted.
+        int span = max - min;
+        int[] src = values;
+        int srcFrom = from;
+        int[] dst = buffers == null ? new int[n] : buffers.scratch(n);
+        int dstFrom = 0;
+        int[] counts = buffers == null ? new int[256] : buffers.digitCounts;
+        for (int shift = 0; shift < 32 && (span >>> shift) != 0; shift += 8) {
+            Arrays.fill(counts, 0);
+            for (int i = srcFrom, end = srcFrom + n; i < end; i++) {
+                counts[((src[i] - min) >>> shift) & 0xFF]++;
+            }
+            if (counts[((src[srcFrom] - min) >>> shift) & 0xFF] == n) {
+                continue; // every key shares this digit, the pass would not move anything
+            }
+            int offset = dstFrom;
+            for (int b = 0; b < 256; b++) {
+                int c = counts[b];
+                counts[b] = offset;
+                offset += c;
+            }
+            for (int i = srcFrom, end = srcFrom + n; i < end; i++) {
+                int v = src[i];
+                dst[counts[((v - min) >>> shift) & 0xFF]++] = v;
+            }
+            int[] swap = src;
+            int swapFrom = srcFrom;
+            src = dst;
+            srcFrom = dstFrom;
+            dst = swap;
+            dstFrom = swapFrom;
+        }
+        if (src != values) {
+            System.arraycopy(src, srcFrom, values, from, n);
+        }
+    }
+
+    /**
+     * Scratch arrays kept between sorts by a long-lived owner such as {@link InputProcessor}, so
+     * radix and counting sorts stop allocating once the buffers have grown to the working size.
+     * Not thread-safe.
+     */
+    static final class Buffers {
+        private int[] scratch = new int[0];
+        private int[] table = new int[0];
+        private final int[] digitCounts = new int[256];
+
+        /** Run limits found by {@link SortPath#sortRuns}, so the presortedness check allocates nothing. */
+        final int[] runBounds = new int[SortPath.MAX_RUNS + 1];
+
+        /** Largest number of ints currently held by either array. */
+        int capacity() {
+            return Math.max(scratch.length, table.length);
+        }
+
+        /** Returns an array of at least {@code n} ints with undefined contents. */
+        int[] scratch(int n) {
+            if (scratch.length < n) {
+                scratch = new int[Math.max(n, scratch.length + (scratch.length >> 1))];
+            }
+            return scratch;
+        }
+
+        /** Returns an array of at least {@code n} ints whose first {@code n} entries are zero. */
+        int[] table(int n) {
+            if (table.length < n) {
+                table = new int[n];
+            } else {
+                Arrays.fill(table, 0, n, 0);
+            }
+            return table;
+        }
+    }
+}
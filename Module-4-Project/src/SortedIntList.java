@@ -0,0 +1,562 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * Incremental STORAGE LAYER: a sorted multiset of ints that stays sorted across calls.
+ *
+ * <p>{@link UserInput#processInput(String)} sorts every batch from scratch. When a few numbers
+ * are appended to an already sorted set and the set is queried again, re-sorting everything is
+ * wasted work. This structure keeps its values sorted in fixed-capacity {@code int[]} blocks,
+ * a one-level B-tree:
+ * <ul>
+ *   <li>a block is found by binary search over the first value of each block, and a value is
+ *       inserted by shifting at most one block ({@link #add(int)}); a full block is split in two;</li>
+ *   <li>a large batch is sorted on its own with the {@link SortStrategy} and then merged with the
+ *       existing blocks in one linear pass ({@link #addAll(int[], int, int)});</li>
+ *   <li>a Fenwick tree over the block sizes answers "how many values come before this block"
+ *       in O(log blocks), so {@link #rank(int)}, {@link #get(int)} and
+ *       {@link #countInRange(int, int)} never walk the whole collection.</li>
+ * </ul>
+ *
+ * <p>Duplicates are kept. The structure is not thread-safe.
+ *
+ * <pre>
+ *   SortedIntList sorted = new SortedIntList();
+ *   sorted.addAll("5 3 9");
+ *   sorted.addAll("4,1");              // merged, not re-sorted
+ *   sorted.rank(5);                    // 3: values 1, 3 and 4 are smaller
+ *   sorted.countInRange(3, 5);         // 3
+ * </pre>
+ */
+public final class SortedIntList {
+
+    /** Default number of values per block. */
+    public static final int DEFAULT_BLOCK_CAPACITY = 1 << 10;
+
+    private final int blockCapacity;
+    private final SortStrategy strategy;
+    private final SortStrategy.Buffers buffers = new SortStrategy.Buffers();
+    /** Reused buffer for incoming batches. */
+    private IntList batch = new IntList();
+
+    private int[][] blocks = new int[4][];
+    private int[] sizes = new int[4];
+    /** First (smallest) value of each block, searched to find a block. */
+    private int[] firsts = new int[4];
+    private int blockCount;
+    /** Fenwick tree over {@code sizes}, 1-based; entry 0 is unused. */
+    private int[] tree = new int[5];
+    private int size;
+
+    /**
+     * Creates an empty list that sorts incoming batches with {@link SortStrategy#AUTO}.
+     */
+    public SortedIntList() {
+        this(SortStrategy.AUTO, DEFAULT_BLOCK_CAPACITY);
+    }
+
+    /**
+     * Creates an empty list.
+     *
+     * @param strategy the sorting algorithm for incoming batches
+     * @param blockCapacity values per block; larger blocks make queries and merges cheaper
+     *                      and single inserts more expensive
+     * @throws NullPointerException if strategy is null
+     * @throws IllegalArgumentException if blockCapacity is smaller than 4
+     */
+    public SortedIntList(SortStrategy strategy, int blockCapacity) {
+        if (blockCapacity < 4) {
+            throw new IllegalArgumentException("Block capacity must be at least 4: " + blockCapacity);
+        }
+        this.strategy = Objects.requireNonNull(strategy, "strategy");
+        this.blockCapacity = blockCapacity;
+    }
+
+    /**
+     * Inserts one value at its sorted position.
+     *
+     * @param value the value to insert
+     * @throws IllegalStateException if the list already holds {@code Integer.MAX_VALUE} values
+     */
+    public void add(int value) {
+        checkRoom(1);
+        if (blockCount == 0) {
+            insertBlock(0, new int[blockCapacity], 0);
+        }
+        int b = Math.max(0, lastBlockStartingAtOrBelow(value));
+        if (sizes[b] == blockCapacity) {
+            split(b);
+            if (firsts[b + 1] <= value) {
+                b++;
+            }
+        }
+        int[] block = blocks[b];
+        int n = sizes[b];
+        int pos = upperBound(block, n, value);
+        System.arraycopy(block, pos, block, pos + 1, n - pos);
+        block[pos] = value;
+        sizes[b] = n + 1;
+        if (pos == 0) {
+            firsts[b] = value;
+        }
+        treeAdd(b, 1);
+        size++;
+    }
+
+    /**
+     * Parses a line with the {@link UserInput#processInput(String)} rules and merges its values.
+     * Nothing is added when the line is rejected.
+     *
+     * @param line integers separated by spaces or commas
+     * @throws NumberFormatException if the line contains non-numeric values
+     */
+    public void addAll(CharSequence line) {
+        batch.clear();
+        try {
+            batch.ensureCapacity(IntTokenizer.countTokens(line, 0, line.length()));
+            IntTokenizer.parseInto(line, 0, line.length(), batch);
+            mergeBatch();
+        } finally {
+            releaseBatch();
+        }
+    }
+
+    /**
+     * Sorts a copy of {@code values[from, to)} and merges it into the list; the caller's array
+     * is left unchanged.
+     *
+     * @param values the array holding the new values
+     * @param from index of the first value to add
+     * @param to index one past the last value to add
+     * @throws IllegalStateException if the list would exceed {@code Integer.MAX_VALUE} values
+     */
+    public void addAll(int[] values, int from, int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        batch.clear();
+        try {
+            batch.ensureCapacity(to - from);
+            for (int i = from; i < to; i++) {
+                batch.add(values[i]);
+            }
+            mergeBatch();
+        } finally {
+            releaseBatch();
+        }
+    }
+
+    /**
+     * Removes one occurrence of {@code value}.
+     *
+     * @param value the value to remove
+     * @return true if the value was present
+     */
+    public boolean remove(int value) {
+        int b = Math.max(0, lastBlockStartingBelow(value));
+        if (b >= blockCount) {
+            return false;
+        }
+        int pos = lowerBound(blocks[b], sizes[b], value);
+        if (pos == sizes[b]) {
+            // every value of block b is smaller; the next block may start with the value
+            b++;
+            pos = 0;
+        }
+        if (b == blockCount || blocks[b][pos] != value) {
+            return false;
+        }
+        int[] block = blocks[b];
+        int n = sizes[b] - 1;
+        size--;
+        if (n == 0) {
+            removeBlock(b);
+            return true;
+        }
+        System.arraycopy(block, pos + 1, block, pos, n - pos);
+        sizes[b] = n;
+        if (pos == 0) {
+            firsts[b] = block[0];
+        }
+        treeAdd(b, -1);
+        return true;
+    }
+
+    /**
+     * Returns the number of stored values, counting duplicates.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value at {@code index} in ascending order.
+     *
+     * @param index position in sorted order
+     * @return the value
+     * @throws IndexOutOfBoundsException if index is outside {@code [0, size)}
+     */
+    public int get(int index) {
+        Objects.checkIndex(index, size);
+        // Fenwick descent: the last block whose preceding blocks hold at most index values
+        int b = 0;
+        int remaining = index;
+        for (int step = Integer.highestOneBit(blockCount); step > 0; step >>= 1) {
+            int next = b + step;
+            if (next <= blockCount && tree[next] <= remaining) {
+                b = next;
+                remaining -= tree[next];
+            }
+        }
+        return blocks[b][remaining];
+    }
+
+    /**
+     * Returns the number of stored values strictly smaller than {@code value}, which is also
+     * the index at which {@code value} would be inserted before any equal values.
+     *
+     * @param value the value to rank
+     * @return the rank
+     */
+    public int rank(int value) {
+        int b = lastBlockStartingBelow(value);
+        return b < 0 ? 0 : prefix(b) + lowerBound(blocks[b], sizes[b], value);
+    }
+
+    /**
+     * Returns the number of stored values in the closed range {@code [low, high]}.
+     *
+     * @param low smallest value to count
+     * @param high largest value to count
+     * @return the count, 0 when low &gt; high
+     */
+    public int countInRange(int low, int high) {
+        return low > high ? 0 : countAtMost(high) - rank(low);
+    }
+
+    /**
+     * Passes the values in {@code [low, high]} to {@code out} in ascending order.
+     *
+     * @param low smallest value to pass
+     * @param high largest value to pass
+     * @param out receives the values, e.g. an {@link IntListWriter}
+     * @return the number of values passed
+     */
+    public int forEachInRange(int low, int high, IntConsumer out) {
+        if (low > high) {
+            return 0;
+        }
+        int count = 0;
+        int b = Math.max(0, lastBlockStartingBelow(low));
+        int pos = b < blockCount ? lowerBound(blocks[b], sizes[b], low) : 0;
+        for (; b < blockCount; b++, pos = 0) {
+            int[] block = blocks[b];
+            int n = sizes[b];
+            for (; pos < n; pos++) {
+                if (block[pos] > high) {
+                    return count;
+                }
+                out.accept(block[pos]);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns whether {@code value} is stored at least once.
+     *
+     * @param value the value to look for
+     * @return true if present
+     */
+    public boolean contains(int value) {
+        return countInRange(value, value) > 0;
+    }
+
+    /**
+     * Returns the smallest value.
+     *
+     * @return the minimum
+     * @throws NoSuchElementException if the list is empty
+     */
+    public int min() {
+        if (size == 0) {
+            throw new NoSuchElementException("Empty list");
+        }
+        return firsts[0];
+    }
+
+    /**
+     * Returns the largest value.
+     *
+     * @return the maximum
+     * @throws NoSuchElementException if the list is empty
+     */
+    public int max() {
+        if (size == 0) {
+            throw new NoSuchElementException("Empty list");
+        }
+        return blocks[blockCount - 1][sizes[blockCount - 1] - 1];
+    }
+
+    /**
+     * Passes every value to {@code out} in ascending order.
+     *
+     * @param out receives the values
+     */
+    public void forEach(IntConsumer out) {
+        for (int b = 0; b < blockCount; b++) {
+            int[] block = blocks[b];
+            for (int i = 0, n = sizes[b]; i < n; i++) {
+                out.accept(block[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the values in ascending order.
+     *
+     * @return a new array of {@link #size()} values
+     */
+    public int[] toArray() {
+        int[] result = new int[size];
+        int offset = 0;
+        for (int b = 0; b < blockCount; b++) {
+            System.arraycopy(blocks[b], 0, result, offset, sizes[b]);
+            offset += sizes[b];
+        }
+        return result;
+    }
+
+    /**
+     * Removes every value.
+     */
+    public void clear() {
+        blocks = new int[4][];
+        sizes = new int[4];
+        firsts = new int[4];
+        tree = new int[5];
+        blockCount = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns the values in the {@code [a, b, c]} format of {@link IntList#toString()}.
+     */
+    @Override
+    public String toString() {
+        return new IntList(toArray(), size).toString();
+    }
+
+    /** Sorts the batch and merges it, value by value when it is small, otherwise in one pass. */
+    private void mergeBatch() {
+        int k = batch.size();
+        if (k == 0) {
+            return;
+        }
+        checkRoom(k);
+        int[] sorted = batch.array();
+        // k single inserts shift about k * blockCapacity / 2 values; a rebuild copies size + k
+        if ((long) k * (blockCapacity / 2) < size) {
+            for (int i = 0; i < k; i++) {
+                add(sorted[i]);
+            }
+            return;
+        }
+        strategy.sort(sorted, 0, k, buffers);
+        rebuild(sorted, k);
+    }
+
+    /**
+     * Merges the existing blocks with {@code sorted[0, k)} into new blocks filled to three
+     * quarters, leaving room for later single inserts.
+     */
+    private void rebuild(int[] sorted, int k) {
+        int total = size + k;
+        int fill = Math.max(1, blockCapacity - blockCapacity / 4);
+        int newCount = (int) (((long) total + fill - 1) / fill);
+        int[][] newBlocks = new int[Math.max(4, newCount)][];
+        int[] newSizes = new int[newBlocks.length];
+        int[] newFirsts = new int[newBlocks.length];
+
+        int oldBlock = 0;
+        int oldPos = 0;
+        int j = 0;
+        for (int nb = 0; nb < newCount; nb++) {
+            int n = Math.min(fill, total - nb * fill);
+            int[] block = new int[blockCapacity];
+            for (int i = 0; i < n; i++) {
+                while (oldBlock < blockCount && oldPos == sizes[oldBlock]) {
+                    oldBlock++;
+                    oldPos = 0;
+                }
+                if (j < k && (oldBlock == blockCount || sorted[j] < blocks[oldBlock][oldPos])) {
+                    block[i] = sorted[j++];
+                } else {
+                    block[i] = blocks[oldBlock][oldPos++];
+                }
+            }
+            newBlocks[nb] = block;
+            newSizes[nb] = n;
+            newFirsts[nb] = block[0];
+        }
+        blocks = newBlocks;
+        sizes = newSizes;
+        firsts = newFirsts;
+        blockCount = newCount;
+        size = total;
+        rebuildTree();
+    }
+
+    /** Splits a full block into two half-full ones. */
+    private void split(int b) {
+        int[] block = blocks[b];
+        int half = sizes[b] >>> 1;
+        int[] upper = new int[blockCapacity];
+        int moved = sizes[b] - half;
+        System.arraycopy(block, half, upper, 0, moved);
+        sizes[b] = half;
+        insertBlock(b + 1, upper, moved);
+    }
+
+    private void insertBlock(int index, int[] block, int blockSize) {
+        if (blockCount == blocks.length) {
+            int capacity = blockCount + (blockCount >> 1);
+            blocks = Arrays.copyOf(blocks, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            firsts = Arrays.copyOf(firsts, capacity);
+        }
+        int moved = blockCount - index;
+        System.arraycopy(blocks, index, blocks, index + 1, moved);
+        System.arraycopy(sizes, index, sizes, index + 1, moved);
+        System.arraycopy(firsts, index, firsts, index + 1, moved);
+        blocks[index] = block;
+        sizes[index] = blockSize;
+        firsts[index] = block[0];
+        blockCount++;
+        rebuildTree();
+    }
+
+    private void removeBlock(int index) {
+        int moved = blockCount - index - 1;
+        System.arraycopy(blocks, index + 1, blocks, index, moved);
+        System.arraycopy(sizes, index + 1, sizes, index, moved);
+        System.arraycopy(firsts, index + 1, firsts, index, moved);
+        blockCount--;
+        blocks[blockCount] = null;
+        rebuildTree();
+    }
+
+    /** Number of values {@code <= value}. */
+    private int countAtMost(int value) {
+        int b = lastBlockStartingAtOrBelow(value);
+        return b < 0 ? 0 : prefix(b) + upperBound(blocks[b], sizes[b], value);
+    }
+
+    /** Index of the last block whose first value is below {@code value}, or -1. */
+    private int lastBlockStartingBelow(int value) {
+        int lo = 0;
+        int hi = blockCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (firsts[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo - 1;
+    }
+
+    /** Index of the last block whose first value is at most {@code value}, or -1. */
+    private int lastBlockStartingAtOrBelow(int value) {
+        int lo = 0;
+        int hi = blockCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (firsts[mid] <= value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo - 1;
+    }
+
+    /** First index in {@code block[0, n)} holding a value {@code >= value}. */
+    private static int lowerBound(int[] block, int n, int value) {
+        int lo = 0;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (block[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** First index in {@code block[0, n)} holding a value {@code > value}. */
+    private static int upperBound(int[] block, int n, int value) {
+        int lo = 0;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (block[mid] <= value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** Total size of the blocks before block {@code b}. */
+    private int prefix(int b) {
+        int sum = 0;
+        for (int i = b; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void treeAdd(int b, int delta) {
+        for (int i = b + 1; i <= blockCount; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /** Rebuilds the Fenwick tree in O(blocks) after blocks were inserted, removed or rebuilt. */
+    private void rebuildTree() {
+        if (tree.length <= blockCount) {
+            tree = new int[blocks.length + 1];
+        } else {
+            Arrays.fill(tree, 0);
+        }
+        for (int i = 1; i <= blockCount; i++) {
+            tree[i] += sizes[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= blockCount) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    private void checkRoom(int additional) {
+        if (size + (long) additional > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many values: " + (size + (long) additional));
+        }
+    }
+
+    /** Drops a batch buffer that a very large batch has grown, as {@link InputProcessor} does. */
+    private void releaseBatch() {
+        batch.clear();
+        if (batch.array().length > InputProcessor.MAX_RETAINED_INTS) {
+            batch = new IntList();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Streaming INPUT and PARSING LAYER: reads integers straight from an {@link InputStream}.
+ *
+ * <p>{@code Scanner.nextLine()} materialises the whole line as one {@code String} before any
+ * parsing starts, so a multi-gigabyte line needs several times its size in heap. This parser
+ * instead reads through one fixed-size byte buffer and converts tokens as soon as they are
+ * complete, handing the values to an {@link IntConsumer} such as an {@link IntList}. A token cut by the end of the buffer is
+ * carried over in a small scratch array, so peak memory is the parsed ints plus the buffer.
+ *
+ * <p>Token rules are those of {@link UserInput#processInput(String)}: tokens are separated by
+ * spaces and commas, whitespace-only tokens are skipped, anything else must be accepted by
+ * {@link Integer#parseInt(String)} or a {@link NumberFormatException} with the same message is
+ * thrown. Lines end at {@code \n}, {@code \r} or {@code \r\n}. Bytes are ASCII-compatible text
+ * in the default charset; only unusual tokens (non-ASCII digits, garbage) are decoded to a
+ * {@code String}.
+ */
+public final class StreamingParser {
+
+    /** Default read buffer size in bytes. */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private static final int MULTMIN = -Integer.MAX_VALUE / 10;
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private final Charset charset = Charset.defaultCharset();
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private boolean skipLineFeed;
+    private byte[] carry = new byte[32];
+    private int carryLength;
+
+    /**
+     * Creates a parser with a {@link #DEFAULT_BUFFER_SIZE} byte buffer.
+     *
+     * @param in the stream to read; not closed by this parser
+     */
+    public StreamingParser(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a parser with a buffer of the given size.
+     *
+     * @param in the stream to read; not closed by this parser
+     * @param bufferSize read buffer size in bytes
+     * @throws IllegalArgumentException if bufferSize is not positive
+     */
+    public StreamingParser(InputStream in, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Reads one line and returns its integers, like {@code processInput(scanner.nextLine())}
+     * without the sort.
+     *
+     * @param in the stream to read
+     * @return buffer of parsed integers in input order
+     * @throws IOException if reading fails
+     * @throws NoSuchElementException if the stream is already at its end, as Scanner.nextLine() does
+     * @throws NumberFormatException for the first invalid token
+     */
+    public static IntList parseLine(InputStream in) throws IOException {
+        return parseLine(in, 0);
+    }
+
+    /**
+     * Reads one line and returns its integers, allocating the buffer for {@code expectedValues}
+     * integers up front. The whole line is never in memory, so it cannot be pre-scanned; a
+     * caller that knows the size avoids the copies of a growing buffer.
+     *
+     * @param in the stream to read
+     * @param expectedValues capacity hint for the result buffer
+     * @return buffer of parsed integers in input order
+     * @throws IOException if reading fails
+     * @throws NoSuchElementException if the stream is already at its end, as Scanner.nextLine() does
+     * @throws NumberFormatException for the first invalid token
+     * @throws IllegalArgumentException if expectedValues is negative
+     */
+    public static IntList parseLine(InputStream in, int expectedValues) throws IOException {
+        IntList values = new IntList(expectedValues);
+        if (!new StreamingParser(in).readLine(values)) {
+            throw new NoSuchElementException("No line found");
+        }
+        return values;
+    }
+
+    /**
+     * Reads the next line, passing its integers to {@code out} in input order.
+     *
+     * @param out receives the values, e.g. an {@link IntList} or an {@link ExternalSort}
+     * @return false if the stream was already at its end, true otherwise
+     * @throws IOException if reading fails
+     * @throws NumberFormatException for the first invalid token; the rest of the line is not read
+     */
+    public boolean readLine(IntConsumer out) throws IOException {
+        if (pos == limit && !fill()) {
+            return false;
+        }
+        if (skipLineFeed) {
+            skipLineFeed = false;
+            if (buffer[pos] == '\n' && ++pos == limit && !fill()) {
+                return false;
+            }
+        }
+        carryLength = 0;
+        while (true) {
+            if (pos == limit && !fill()) {
+                if (carryLength > 0) {
+                    acceptToken(carry, 0, carryLength, out);
+                    carryLength = 0;
+                }
+                return true;
+            }
+            final byte[] b = buffer;
+            final int n = limit;
+            int i = pos;
+            if (carryLength > 0) {
+                // Finish the token that was cut by the previous buffer boundary.
+                int start = i;
+                while (i < n && !isBoundary(b[i])) {
+                    i++;
+                }
+                appendCarry(b, start, i);
+                if (i == n) {
+                    pos = i;
+                    continue;
+                }
+                acceptToken(carry, 0, carryLength, out);
+                carryLength = 0;
+            }
+            while (i < n) {
+                byte c = b[i];
+                if (c == ' ' || c == ',') {
+                    i++;
+                } else if (c == '\n' || c == '\r') {
+                    pos = i + 1;
+                    if (c == '\r') {
+                        if (pos < limit) {
+                            if (b[pos] == '\n') {
+                                pos++;
+                            }
+                        } else {
+                            skipLineFeed = true;
+                        }
+                    }
+                    return true;
+                } else {
+                    int start = i;
+                    while (i < n && !isBoundary(b[i])) {
+                        i++;
+                    }
+                    if (i == n) {
+                        appendCarry(b, start, i);
+                    } else {
+                        acceptToken(b, start, i, out);
+                    }
+                }
+            }
+            pos = i;
+        }
+    }
+
+    private static boolean isBoundary(byte c) {
+        return c == ' ' || c == ',' || c == '\n' || c == '\r';
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        int read;
+        do {
+            read = in.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read < 0) {
+            eof = true;
+            pos = 0;
+            limit = 0;
+            return false;
+        }
+        pos = 0;
+        limit = read;
+        return true;
+    }
+
+    private void appendCarry(byte[] b, int from, int to) {
+        int n = to - from;
+        if (carryLength + n > carry.length) {
+            byte[] grown = new byte[Math.max(carry.length * 2, carryLength + n)];
+            System.arraycopy(carry, 0, grown, 0, carryLength);
+            carry = grown;
+        }
+        System.arraycopy(b, from, carry, carryLength, n);
+        carryLength += n;
+    }
+
+    /** Converts the token {@code b[from, to)}, which contains no delimiter or line terminator. */
+    private void acceptToken(byte[] b, int from, int to, IntConsumer out) {
+        int i = from;
+        boolean negative = false;
+        int bound = -Integer.MAX_VALUE;
+        byte first = b[i];
+        if (first == '-') {
+            negative = true;
+            bound = Integer.MIN_VALUE;
+            i++;
+        } else if (first == '+') {
+            i++;
+        }
+        if (i < to) {
+            int result = 0;
+            while (i < to) {
+                int digit = b[i] - '0';
+                if (digit < 0 || digit > 9 || result < MULTMIN) {
+                    break;
+                }
+                result *= 10;
+                if (result < bound + digit) {
+                    break;
+                }
+                result -= digit;
+                i++;
+            }
+            if (i == to) {
+                out.accept(negative ? result : -result);
+                return;
+            }
+        }
+        // Whitespace, non-ASCII digits, overflow or garbage: apply the exact String rules.
+        IntTokenizer token = new IntTokenizer(new String(b, from, to - from, charset), false);
+        int state = token.next();
+        if (state == IntTokenizer.INT) {
+            out.accept(token.value());
+        } else if (state == IntTokenizer.INVALID) {
+            throw token.invalidToken();
+        }
+    }
+}
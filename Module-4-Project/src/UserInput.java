@@ -1,7 +1,11 @@
-import java.util.Collections;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Scanner;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.function.IntConsumer;
 
 /**
  *  PROGRAM DESIGN DOCUMENTATION
@@ -14,29 +18,84 @@ import java.util.List;
  *  DESIGN PATTERNS IMPLEMENTED:
  *  1. Pipeline Pattern - Sequential data processing stages
  *  2. Facade Pattern - Scanner class as input interface
- *  3. Strategy Pattern - Regex-based parsing strategy
- *  4. Collection Pattern - LinkedList for dynamic storage
- *  5. Template Method Pattern - Collections.sort() algorithm
+ *  3. Strategy Pattern - Single-pass IntTokenizer parsing strategy
+ *  4. Collection Pattern - IntList primitive buffer with a List<Integer> view
+ *  5. Template Method Pattern - SortStrategy algorithms (comparison, radix, counting, auto)
  *  
  *  COMPONENT ARCHITECTURE:
  *  ┌─────────────┐    ┌──────────────┐    ┌─────────────┐    ┌─────────────┐
  *  │   INPUT     │    │   PARSING    │    │  STORAGE    │    │ PROCESSING  │
  *  │   LAYER     │───▶│    LAYER     │───▶│   LAYER     │───▶│    LAYER    │
- *  │  Scanner    │    │ String.split │    │ LinkedList  │    │Collections  │
+ *  │  Scanner    │    │ IntTokenizer │    │   IntList   │    │SortStrategy │
  *  └─────────────┘    └──────────────┘    └─────────────┘    └─────────────┘
  *  
  *  DATA FLOW DESIGN:
- *  Raw Input → String Line → String[] Tokens → LinkedList<Integer> → Sorted List → Output
+ *  Raw Input → String Line → int Tokens (IntTokenizer) → IntList (int[]) → Sorted int[] →
+ *  Output (IntListWriter)
  *  
  *  COMPLEXITY ANALYSIS:
- *  Time Complexity: O(k log k) where k = number of integers (dominated by sorting)
+ *  Time Complexity: O(k log k) where k = number of integers (dominated by sorting);
+ *                   O(k) when SortStrategy.AUTO picks radix or counting sort for bounded values
  *  Space Complexity: O(k) where k = number of integers
  *  
  *  DESIGN DECISIONS:
- *  - Monolithic single-class design for simplicity
+ *  - Static UserInput facade over small single-purpose classes
+ *    (IntTokenizer, IntList, SortStrategy, ParallelSort, ParallelParser, StreamingParser,
+ *    ExternalSort, MappedFileParser, IntListWriter, InputProcessor, ConcurrentIntCollector,
+ *    SortServer, SortedIntList, PartialSort, Frequencies, BinaryCodec, NumberWidth,
+ *    WideTokenizer, LongList, PipelineMetrics, SortPath, IntKernels, OffHeapIntList,
+ *    ResultCache)
  *  - Static main method (no state management required)
- *  - LinkedList chosen for efficient insertion operations
- *  - Built-in Collections.sort() for optimized sorting
+ *  - IntList (growable int[]) chosen over LinkedList<Integer>: ~4 bytes per value instead of ~40,
+ *    presized from an IntTokenizer.countTokens pre-scan (or a caller's capacity hint) so large
+ *    inputs are stored without repeated array copies
+ *  - Opt-in fork-join ParallelSort (--parallel) for inputs above a configurable threshold,
+ *    with ParallelParser parsing long lines in delimiter-aligned chunks
+ *  - Opt-in StreamingParser (--stream) reads stdin through a fixed byte buffer instead of
+ *    Scanner.nextLine(), so huge lines never exist as a String
+ *  - Opt-in ExternalSort (--external) spills sorted runs to temp files and k-way merges them,
+ *    for inputs larger than the heap
+ *  - Opt-in MappedFileParser (--file=<path>) memory-maps integer files in delimiter-aligned
+ *    windows and tokenizes the mapped bytes in place, in parallel
+ *  - IntListWriter prints the sorted values in the List.toString() format by formatting digits
+ *    into one reusable byte buffer, instead of building the whole output as a String
+ *  - InputProcessor batch/session API keeps the parse buffer and sort scratch space between
+ *    lines; the static processInput methods use one per thread, so repeated calls stop
+ *    allocating anything but their result
+ *  - analyzeInput() answers isValidInput, countIntegers and processInput from one tokenizing
+ *    pass (InputAnalysis), sorting lazily only when the sorted values are requested
+ *  - ConcurrentIntCollector lets several producer threads add values to their own lock-free
+ *    striped int[] buffers, which are concatenated and sorted once when the consumer seals it
+ *  - Opt-in SortServer (--serve=<port|unix:path>) keeps one warm JVM answering sort requests
+ *    line by line over a local socket, one (virtual, where available) thread per connection
+ *  - SortedIntList keeps values sorted across calls in fixed-size int[] blocks, so new batches
+ *    are merged (sort-then-merge) instead of re-sorting everything, with rank/range queries
+ *  - Opt-in partial sorts (--first=N, --top=N, --kth=K): a bounded heap fed straight from the
+ *    tokenizer keeps only N values, and introselect finds the k-th value in expected O(k)
+ *  - Opt-in --distinct / --counts: Frequencies counts duplicates in an open-addressing int map
+ *    and sorts only the distinct keys, or sorts and run-length collapses high-cardinality input
+ *  - Opt-in binary formats (--input-format, --output-format): BinaryCodec reads and writes
+ *    little-endian int32 or delta + zigzag varints, skipping decimal parsing and formatting
+ *  - Separate long (LongList) and BigInteger paths for values beyond 32 bits; main tries the
+ *    int path first and only widens (--width=auto) when a value overflows, so ints stay fast
+ *  - Opt-in --stats: PipelineMetrics times every stage (wall time, elements, bytes, allocation
+ *    and a latency histogram) into a pluggable sink, and emits JFR events during a recording;
+ *    when disabled a stage costs one check and a shared no-op span
+ *  - Presortedness check before every sort (SortPath): one scan for natural runs returns at
+ *    once for ascending input, reverses descending input and merges a few concatenated runs;
+ *    analyzeInput().sortPath() and InputProcessor.lastSortPath() report the path taken
+ *  - Optional SIMD kernels (IntKernels): with --add-modules jdk.incubator.vector the min/max
+ *    pre-pass, a one-register sorting network (inputs of at most 16 ints and the PartialSort
+ *    base case) and the token count of mapped files use the Vector API; otherwise the same
+ *    scalar loops as before
+ *  - Opt-in --off-heap: OffHeapIntList stores the values in direct memory segments with long
+ *    indexes and sorts them in place (MSD radix), so inputs beyond 2^31 integers need neither
+ *    a huge heap nor GC work; the memory is freed explicitly when the output is written
+ *  - Opt-in ResultCache (processInput(input, cache), --serve with --cache): repeated lines are
+ *    answered from striped, size-bounded LRU maps keyed by a 64-bit hash and verified against
+ *    the stored line, with hit/miss/eviction counters
+ *  - SortStrategy.AUTO by default: a min/max pre-pass picks counting sort for narrow ranges,
+ *    LSD radix sort for large inputs, and Arrays.sort(int[]) otherwise
  *  - Implicit error handling through Java's exception system
  *  
  *  CODE REUSE DOCUMENTATION:
@@ -48,87 +107,755 @@ import java.util.List;
  *     - Leveraging nextLine() method for complete line input processing
  *     - Utilizing close() method for proper resource management
  *  
- *  2. LinkedList Collection (java.util.LinkedList) - REUSED for data storage
- *     - Reusing existing dynamic list implementation instead of creating custom array management
- *     - Leveraging add() method for element insertion
- *     - Utilizing built-in memory management and resizing capabilities
+ *  2. AbstractList (java.util.AbstractList) - REUSED for the List<Integer> view
+ *     - IntList stores values in a growable int[]; AbstractList supplies equals(), hashCode(),
+ *       toString() and iteration for the view returned by processInput()
  *  
- *  3. Collections Utility Class (java.util.Collections) - REUSED for sorting
+ *  3. Arrays Utility Class (java.util.Arrays) - REUSED for sorting
  *     - Reusing existing sorting algorithm implementation instead of writing custom sort
- *     - Leveraging sort() method with optimized sorting algorithms
- *     - Utilizing built-in comparison and ordering logic
+ *     - Leveraging sort(int[]) dual-pivot quicksort directly on primitives
+ *     - Utilizing copyOf() for buffer growth
  *  
- *  4. String.split() Method - REUSED for input parsing
- *     - Reusing existing regex-based string splitting functionality
- *     - Leveraging "[ ,]+" pattern for flexible delimiter handling
- *     - Utilizing built-in tokenization instead of manual parsing
+ *  4. IntTokenizer - CUSTOM parsing layer (replaces String.split() and Integer.parseInt())
+ *     - String.split("[ ,]+") compiled a regex per call and created a String per token,
+ *       which dominated the profile for lines with millions of numbers
+ *     - IntTokenizer scans the characters once, keeps the same "[ ,]+" delimiter rules,
+ *       and converts digits directly with Integer.parseInt() overflow semantics
+ *     - processInput(), isValidInput() and countIntegers() all share it
  *  
- *  5. Integer.parseInt() Method - REUSED for type conversion
- *     - Reusing existing string-to-integer conversion functionality
- *     - Leveraging built-in number parsing and validation
- *     - Utilizing exception handling for invalid input
- *  
- *  TOTAL CODE REUSE: 5 major Java API components reused, eliminating need to implement
- *  custom input handling, data structures, sorting algorithms, string parsing, and type conversion.
+ *  TOTAL CODE REUSE: 3 major Java API components reused; tokenizing and type conversion
+ *  are done by the shared IntTokenizer so parsing produces no intermediate Strings.
  */
 public class UserInput {
 
+    private static final String PROMPT = "Enter a series of integers seperated by a space or comma: ";
+
     /**
      * Main method that demonstrates the pipeline architecture and code reuse.
-     * @param args command-line arguments (not used in development of this program)
+     * @param args command-line options, see {@link CommandLineOptions#USAGE}
+     *             (e.g. {@code --parallel}, {@code --sort=radix}, {@code --stream} or
+     *             {@code --external}, {@code --file=<path>}, {@code --serve=<port>}); none are required
+     * @throws IOException if the input or external sort run files cannot be read or written
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        CommandLineOptions options;
+        try {
+            options = CommandLineOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(CommandLineOptions.USAGE);
+            // nonzero, so scripts can tell a rejected command line from a successful run
+            System.exit(2);
+            return;
+        }
+
+        // INSTRUMENTATION: --stats prints per-stage timings to standard error once the run ends;
+        // without it only JFR events are emitted, and only while a flight recording asks for them
+        PipelineMetrics.Summary stats = options.stats ? new PipelineMetrics.Summary() : null;
+        try {
+            run(options, stats == null ? PipelineMetrics.DISABLED : PipelineMetrics.to(stats));
+        } finally {
+            if (stats != null) {
+                stats.print(System.err);
+            }
+        }
+    }
+
+    /** Runs the mode selected by the options; the pipeline stages are reported to {@code metrics}. */
+    private static void run(CommandLineOptions options, PipelineMetrics metrics) throws IOException {
+        if (options.serveAddress != null) {
+            // SERVER MODE: one warm JVM answers every line sent over the socket until it is stopped
+            serve(options);
+            return;
+        }
+
+        if (options.offHeap) {
+            // OFF-HEAP STORAGE: values live in direct memory segments with long indexes, so the
+            // input may exceed 2^31 integers and the garbage collector never scans it
+            sortOffHeap(options, metrics);
+            return;
+        }
+
+        if (options.inputFormat != null || options.outputFormat != null) {
+            // BINARY INPUT/OUTPUT: no decimal parsing or formatting (see BinaryCodec)
+            sortBinary(options, metrics);
+            return;
+        }
+
+        if (options.first > 0 || options.top > 0 || options.kth > 0) {
+            // PARTIAL SORT: only the requested values are ordered (see PartialSort)
+            printSelection(options);
+            return;
+        }
+
+        if (options.distinct || options.counts) {
+            // DISTINCT / HISTOGRAM: duplicates are counted instead of sorted (see Frequencies)
+            printFrequencies(options);
+            return;
+        }
+
+        if (options.file != null && options.externalMemoryBytes == 0) {
+            // MAPPED FILE INPUT: the file is memory-mapped in windows and parsed in place,
+            // in parallel, without reading it through a Reader or a String (see MappedFileParser)
+            IntList values;
+            try (PipelineMetrics.Span stage = metrics.begin(PipelineMetrics.Stage.PARSING)) {
+                values = MappedFileParser.parse(options.file);
+                stage.elements(values.size()).bytes(Files.size(options.file));
+            }
+            sort(values, options.strategy, options.parallelThreshold, metrics);
+            printSorted(values.array(), values.size(), metrics);
+            return;
+        }
+
+        if (options.externalMemoryBytes > 0) {
+            // EXTERNAL SORT: stdin is streamed into sorted runs spilled to disk, then k-way merged
+            // straight to the output, so neither the input nor the result has to fit in the heap
+            if (options.file == null) {
+                System.out.print(PROMPT);
+            }
+            printExternal(options);
+            return;
+        }
+
+        if (options.stream) {
+            // STREAMING INPUT: integers are parsed from a fixed-size byte buffer as they arrive,
+            // so the line is never materialized as a String (see StreamingParser)
+            System.out.print(PROMPT);
+            IntList values;
+            try (PipelineMetrics.Span stage = metrics.begin(PipelineMetrics.Stage.PARSING)) {
+                values = StreamingParser.parseLine(System.in, options.capacity);
+                stage.elements(values.size());
+            }
+            sort(values, options.strategy, options.parallelThreshold, metrics);
+            printSorted(values.array(), values.size(), metrics);
+            return;
+        }
+
         // CODE REUSE EXAMPLE 1: Scanner Class - Reusing existing input handling
         // Instead of writing custom input reader, we reuse the proven Scanner class
         Scanner scanner = new Scanner(System.in);    
-        System.out.print("Enter a series of integers seperated by a space or comma: ");
+        System.out.print(PROMPT);
 
         // CODE REUSE EXAMPLE 2: Scanner.nextLine() - Reusing existing line reading method
         // Leveraging built-in method instead of implementing custom line input processing
-        String line = scanner.nextLine();
+        String line;
+        try (PipelineMetrics.Span stage = metrics.begin(PipelineMetrics.Stage.INPUT)) {
+            line = scanner.nextLine();
+            stage.bytes(line.length());
+        }
+
+        if (options.width == NumberWidth.LONG || options.width == NumberWidth.BIG_INTEGER) {
+            printWide(line, options.width, options.strategy);
+            scanner.close();
+            return;
+        }
 
         // Process the input and get sorted result
-        List<Integer> sortedNumbers = processInput(line);
-        
-        // Prints the final sorted list of integers.
-        System.out.println("User Entered: " + sortedNumbers);
+        IntList sortedNumbers;
+        try {
+            sortedNumbers = sortLine(line, options.strategy, options.parallelThreshold, metrics);
+        } catch (NumberFormatException e) {
+            // WIDTH DETECTION: widen only if the rejected token is a long or BigInteger,
+            // so int input never pays for the wider paths
+            NumberWidth width = options.width == NumberWidth.AUTO ? NumberWidth.detect(line) : NumberWidth.INT;
+            if (width == NumberWidth.INT) {
+                throw e;
+            }
+            printWide(line, width, options.strategy);
+            scanner.close();
+            return;
+        }
+
+        // Prints the final sorted list of integers in the List.toString() format,
+        // formatted straight into a byte buffer (see IntListWriter)
+        printSorted(sortedNumbers.array(), sortedNumbers.size(), metrics);
     
         // CODE REUSE EXAMPLE 7: Scanner.close() - Reusing existing resource management
         // Leveraging built-in cleanup method instead of manual resource handling
         scanner.close();
     }
 
+    /** Sorts and prints a line on the {@link NumberWidth#LONG} or {@link NumberWidth#BIG_INTEGER} path. */
+    private static void printWide(String line, NumberWidth width, SortStrategy strategy) throws IOException {
+        IntListWriter out = new IntListWriter(System.out);
+        out.write("User Entered: ");
+        if (width == NumberWidth.LONG) {
+            long[] sorted = processInputToLongArray(line, strategy);
+            out.writeList(sorted, 0, sorted.length);
+        } else {
+            out.write(Arrays.toString(processInputToBigIntegerArray(line)));
+        }
+        out.newLine();
+        out.flush();
+    }
+
+    /**
+     * Prints {@code User Entered: [a, b, c]} for {@code values[0, size)} through an
+     * {@link IntListWriter}, exactly as {@code System.out.println("User Entered: " + list)} would.
+     */
+    private static void printSorted(int[] values, int size, PipelineMetrics metrics) throws IOException {
+        try (PipelineMetrics.Span stage = metrics.begin(PipelineMetrics.Stage.OUTPUT)) {
+            IntListWriter out = new IntListWriter(System.out);
+            out.write("User Entered: ");
+            out.writeList(values, 0, size);
+            out.newLine();
+            out.flush();
+            stage.elements(size).bytes(out.bytesWritten());
+        }
+    }
+
+    /**
+     * STORAGE, PARSING and PROCESSING stages of one line, reported separately to {@code metrics}.
+     * With a parallel threshold the chunked {@link ParallelParser} sizes its own buffers, so
+     * storage is part of the parsing stage.
+     */
+    private static IntList sortLine(CharSequence line, SortStrategy strategy, int parallelThreshold,
+            PipelineMetrics metrics) {
+        IntList values;
+        if (parallelThreshold > 0) {
+            try (PipelineMetrics.Span stage = metrics.begin(PipelineMetrics.Stage.PARSING)) {
+                values = ParallelParser.parse(line);
+                stage.elements(values.size()).bytes(line.length());
+            }
+        } else {
+            try (PipelineMetrics.Span stage = metrics.begin(PipelineMetrics.Stage.STORAGE)) {
+                int capacity = IntTokenizer.countTokens(line, 0, line.length());
+                values = new IntList(capacity);
+                stage.elements(capacity);
+            }
+            try (PipelineMetrics.Span stage = metrics.begin(PipelineMetrics.Stage.PARSING)) {
+                IntTokenizer.parseInto(line, 0, line.length(), values);
+                stage.elements(values.size()).bytes(line.length());
+            }
+        }
+        sort(values, strategy, parallelThreshold, metrics);
+        return values;
+    }
+
+    /** PROCESSING stage: sorts sequentially or, with a parallel threshold, on all cores. */
+    private static void sort(IntList values, SortStrategy strategy, int parallelThreshold, PipelineMetrics metrics) {
+        try (PipelineMetrics.Span stage = metrics.begin(PipelineMetrics.Stage.PROCESSING)) {
+            if (parallelThreshold > 0) {
+                values.parallelSort(strategy, parallelThreshold);
+            } else {
+                values.sort(strategy);
+            }
+            stage.elements(values.size());
+        }
+    }
+
+    /**
+     * Prints the {@code --first}, {@code --top} or {@code --kth} selection. For the first two the
+     * parsers feed a {@link PartialSort.TopK} directly, so the input is never stored.
+     */
+    private static void printSelection(CommandLineOptions options) throws IOException {
+        IntListWriter out = new IntListWriter(System.out);
+        if (options.kth > 0) {
+            IntList values = readAll(options);
+            if (options.kth > values.size()) {
+                System.err.println("Cannot take value #" + options.kth + " of " + values.size());
+                System.exit(1);
+                return;
+            }
+            out.write("Smallest #" + options.kth + ": "
+                    + PartialSort.select(values.array(), 0, values.size(), options.kth - 1));
+        } else {
+            PartialSort.TopK selection = options.first > 0
+                    ? PartialSort.TopK.smallest(options.first)
+                    : PartialSort.TopK.largest(options.top);
+            if (options.file != null) {
+                MappedFileParser.forEach(options.file, selection);
+            } else if (options.stream) {
+                System.out.print(PROMPT);
+                new StreamingParser(System.in).readLine(selection);
+            } else {
+                System.out.print(PROMPT);
+                try (Scanner scanner = new Scanner(System.in)) {
+                    String line = scanner.nextLine();
+                    IntTokenizer.forEach(line, 0, line.length(), selection);
+                }
+            }
+            out.write(options.first > 0 ? "Smallest " + options.first + ": " : "Largest " + options.top + ": ");
+            int[] selected = selection.toSortedArray();
+            out.writeList(selected, 0, selected.length);
+        }
+        out.newLine();
+        out.flush();
+    }
+
+    /** Prints the {@code --distinct} values or the {@code --counts} histogram. */
+    private static void printFrequencies(CommandLineOptions options) throws IOException {
+        IntList values = readAll(options);
+        Frequencies frequencies = Frequencies.of(values.array(), 0, values.size(), options.strategy);
+        IntListWriter out = new IntListWriter(System.out);
+        if (options.distinct) {
+            out.write("Distinct: ");
+            int[] distinct = frequencies.values();
+            out.writeList(distinct, 0, distinct.length);
+        } else {
+            out.write("Counts: ");
+            frequencies.writeTo(out);
+        }
+        out.newLine();
+        out.flush();
+    }
+
+    /**
+     * Sorts with a binary {@code --input-format} and/or {@code --output-format}. Binary output is
+     * written without the label or prompt, so standard output holds nothing but the values.
+     */
+    private static void sortBinary(CommandLineOptions options, PipelineMetrics metrics) throws IOException {
+        if (options.externalMemoryBytes > 0) {
+            try (ExternalSort sorter = new ExternalSort(options.externalMemoryBytes, options.tempDir, options.strategy)) {
+                readInto(options, sorter);
+                if (options.outputFormat != null) {
+                    BinaryCodec.Encoder out = new BinaryCodec.Encoder(System.out, options.outputFormat);
+                    sorter.finish(out);
+                    out.flush();
+                } else {
+                    IntListWriter out = new IntListWriter(System.out);
+                    out.write("User Entered: ");
+                    out.beginList();
+                    sorter.finish(out);
+                    out.endList();
+                    out.newLine();
+                    out.flush();
+                }
+            }
+            return;
+        }
+        IntList values;
+        try (PipelineMetrics.Span stage = metrics.begin(PipelineMetrics.Stage.PARSING)) {
+            if (options.inputFormat == null) {
+                values = readAll(options);
+            } else if (options.file != null) {
+                values = BinaryCodec.read(options.file, options.inputFormat);
+            } else {
+                values = BinaryCodec.read(System.in, options.inputFormat);
+            }
+            stage.elements(values.size());
+        }
+        sort(values, options.strategy, options.parallelThreshold, metrics);
+        if (options.outputFormat != null) {
+            try (PipelineMetrics.Span stage = metrics.begin(PipelineMetrics.Stage.OUTPUT)) {
+                BinaryCodec.write(values.array(), 0, values.size(), options.outputFormat, System.out);
+                stage.elements(values.size());
+            }
+        } else {
+            printSorted(values.array(), values.size(), metrics);
+        }
+    }
+
+    /**
+     * Reads the whole input into an {@link OffHeapIntList}, sorts it in place and writes it in the
+     * requested output format. The direct memory is freed as soon as the output is written.
+     */
+    private static void sortOffHeap(CommandLineOptions options, PipelineMetrics metrics) throws IOException {
+        try (OffHeapIntList values = new OffHeapIntList()) {
+            try (PipelineMetrics.Span stage = metrics.begin(PipelineMetrics.Stage.PARSING)) {
+                readInto(options, values);
+                stage.elements(values.size());
+            }
+            try (PipelineMetrics.Span stage = metrics.begin(PipelineMetrics.Stage.PROCESSING)) {
+                values.sort();
+                stage.elements(values.size());
+            }
+            try (PipelineMetrics.Span stage = metrics.begin(PipelineMetrics.Stage.OUTPUT)) {
+                if (options.outputFormat != null) {
+                    BinaryCodec.Encoder out = new BinaryCodec.Encoder(System.out, options.outputFormat);
+                    values.forEach(out);
+                    out.flush();
+                } else {
+                    IntListWriter out = new IntListWriter(System.out);
+                    out.write("User Entered: ");
+                    out.beginList();
+                    values.forEach(out);
+                    out.endList();
+                    out.newLine();
+                    out.flush();
+                    stage.bytes(out.bytesWritten());
+                }
+                stage.elements(values.size());
+            }
+        }
+    }
+
+    /** Streams every integer of the input into {@code out}, e.g. an {@link ExternalSort}. */
+    private static void readInto(CommandLineOptions options, IntConsumer out) throws IOException {
+        if (options.inputFormat != null) {
+            if (options.file != null) {
+                try (InputStream in = Files.newInputStream(options.file)) {
+                    BinaryCodec.forEach(in, options.inputFormat, out);
+                }
+            } else {
+                BinaryCodec.forEach(System.in, options.inputFormat, out);
+            }
+        } else if (options.file != null) {
+            MappedFileParser.forEach(options.file, out);
+        } else {
+            if (options.outputFormat == null) {
+                System.out.print(PROMPT);
+            }
+            new StreamingParser(System.in).readLine(out);
+        }
+    }
+
+    /**
+     * Reads every integer of the {@code --file}, or of one line of standard input, unsorted.
+     * The prompt is only printed for text output.
+     */
+    private static IntList readAll(CommandLineOptions options) throws IOException {
+        if (options.file != null) {
+            return MappedFileParser.parse(options.file);
+        }
+        if (options.outputFormat == null) {
+            System.out.print(PROMPT);
+        }
+        if (options.stream) {
+            return StreamingParser.parseLine(System.in, options.capacity);
+        }
+        try (Scanner scanner = new Scanner(System.in)) {
+            return parseInts(scanner.nextLine());
+        }
+    }
+
+    /** Runs a {@link SortServer} until the JVM is shut down, e.g. with Ctrl+C. */
+    private static void serve(CommandLineOptions options) throws IOException {
+        ResultCache cache = options.cacheBytes > 0 ? new ResultCache(options.cacheBytes) : null;
+        SortServer server = SortServer.start(options.serveAddress, options.strategy, cache);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                // exiting anyway
+            }
+            if (cache != null) {
+                System.err.println(cache);
+            }
+        }));
+        System.err.println("Sorting lines on " + server.address()
+                + (SortServer.usesVirtualThreads() ? " (virtual threads)" : " (platform threads)"));
+        try {
+            server.awaitTermination();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            server.close();
+        }
+    }
+
+    /**
+     * Runs {@link ExternalSort} over the {@code --file} input, or one line of standard input,
+     * and prints the merged values in the usual {@code User Entered: [a, b, c]} format without
+     * collecting them.
+     */
+    private static void printExternal(CommandLineOptions options) throws IOException {
+        IntListWriter out = new IntListWriter(System.out);
+        out.write("User Entered: ");
+        out.beginList();
+        if (options.file != null) {
+            try (ExternalSort sorter = new ExternalSort(options.externalMemoryBytes, options.tempDir, options.strategy)) {
+                MappedFileParser.forEach(options.file, sorter);
+                sorter.finish(out);
+            }
+        } else {
+            ExternalSort.sort(System.in, out, options.externalMemoryBytes, options.tempDir);
+        }
+        out.endList();
+        out.newLine();
+        out.flush();
+    }
+
     /**
      * Processes input string and returns sorted list of integers.
      * This method is extracted for testability while maintaining the same functionality.
+     * The returned list is a view over the sorted primitive buffer (see {@link IntList#asList()}).
      * 
      * @param input the input string containing integers separated by spaces or commas
      * @return sorted list of integers
      * @throws NumberFormatException if input contains non-numeric values
      */
     public static List<Integer> processInput(String input) {
-        // CODE REUSE EXAMPLE 3: String.split() - Reusing existing string parsing functionality
-        // Using built-in regex-based splitting instead of writing custom tokenizer
-        String[] tokens = input.split("[ ,]+");
-        
-        // CODE REUSE EXAMPLE 4: LinkedList - Reusing existing dynamic list implementation
-        // Utilizing proven data structure instead of creating custom array management
-        LinkedList<Integer> list = new LinkedList<>();
-       
-        // CODE REUSE EXAMPLE 5: Integer.parseInt() and LinkedList.add() - Reusing existing methods
-        // Leveraging built-in type conversion and list insertion instead of custom implementations
-        for (String token : tokens) {
-            if (!token.trim().isEmpty()) { // Skip empty tokens
-                int num = Integer.parseInt(token);  // REUSED: Built-in string-to-int conversion
-                list.add(num);                      // REUSED: Built-in list insertion method
-            }
-        }
-
-        // CODE REUSE EXAMPLE 6: Collections.sort() - Reusing existing sorting algorithm
-        // Using optimized sorting implementation instead of writing custom sort (bubble, quick, etc.)
-        Collections.sort(list);
-        
-        return list;
+        return processInput(input, SortStrategy.AUTO);
+    }
+
+    /**
+     * Processes input string and returns sorted list of integers using the given sorting algorithm.
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @param strategy the sorting algorithm for the processing layer
+     * @return sorted list of integers
+     * @throws NumberFormatException if input contains non-numeric values
+     */
+    public static List<Integer> processInput(String input, SortStrategy strategy) {
+        // Reuses this thread's parse and sort buffers (see InputProcessor)
+        return InputProcessor.forCurrentThread().process(input, strategy);
+    }
+
+    /**
+     * Processes input string and returns sorted list of integers, sorting on all cores
+     * when there are at least {@code parallelThreshold} integers. Long inputs are also
+     * parsed in delimiter-aligned chunks on all cores (see {@link ParallelParser}).
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @param strategy the sequential sorting algorithm for each piece of the parallel sort
+     * @param parallelThreshold inputs with fewer integers are sorted sequentially
+     * @return sorted list of integers
+     * @throws NumberFormatException if input contains non-numeric values
+     * @throws IllegalArgumentException if parallelThreshold is not positive
+     */
+    public static List<Integer> processInput(String input, SortStrategy strategy, int parallelThreshold) {
+        return ParallelParser.parse(input).parallelSort(strategy, parallelThreshold).asList();
+    }
+
+    /**
+     * Processes input string and returns the sorted integers as a primitive array.
+     * Same parsing and error behaviour as {@link #processInput(String)} without any boxing.
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @return sorted array of integers
+     * @throws NumberFormatException if input contains non-numeric values
+     */
+    public static int[] processInputToIntArray(String input) {
+        return processInputToIntArray(input, SortStrategy.AUTO);
+    }
+
+    /**
+     * Processes input string and returns the sorted integers as a primitive array
+     * using the given sorting algorithm.
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @param strategy the sorting algorithm for the processing layer
+     * @return sorted array of integers
+     * @throws NumberFormatException if input contains non-numeric values
+     */
+    public static int[] processInputToIntArray(String input, SortStrategy strategy) {
+        return InputProcessor.forCurrentThread().processToIntArray(input, strategy);
+    }
+
+    /**
+     * Processes input string and returns the sorted integers as a primitive array, sorting
+     * on all cores when there are at least {@code parallelThreshold} integers. Long inputs
+     * are also parsed in delimiter-aligned chunks on all cores (see {@link ParallelParser}).
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @param strategy the sequential sorting algorithm for each piece of the parallel sort
+     * @param parallelThreshold inputs with fewer integers are sorted sequentially
+     * @return sorted array of integers
+     * @throws NumberFormatException if input contains non-numeric values
+     * @throws IllegalArgumentException if parallelThreshold is not positive
+     */
+    public static int[] processInputToIntArray(String input, SortStrategy strategy, int parallelThreshold) {
+        return ParallelParser.parse(input).parallelSort(strategy, parallelThreshold).toArray();
+    }
+
+    /**
+     * Processes input string like {@link #processInputToIntArray(String, SortStrategy)} and
+     * reports the storage, parsing and processing stages to {@code metrics}, e.g. a
+     * {@link PipelineMetrics.Summary} of per-stage time, elements and allocation.
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @param strategy the sorting algorithm
+     * @param metrics receives one measurement per stage
+     * @return sorted array of integers
+     * @throws NumberFormatException if input contains non-numeric values
+     */
+    public static int[] processInputToIntArray(String input, SortStrategy strategy, PipelineMetrics metrics) {
+        return sortLine(input, strategy, 0, metrics).toArray();
+    }
+
+    /**
+     * Processes input string like {@link #processInput(String)}, answering repeated inputs from
+     * {@code cache} instead of parsing and sorting them again.
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @param cache shared cache of sorted results, e.g. one per application
+     * @return sorted list of integers
+     * @throws NumberFormatException if input contains non-numeric values
+     */
+    public static List<Integer> processInput(String input, ResultCache cache) {
+        return cache.process(input);
+    }
+
+    /**
+     * Processes input string like {@link #processInputToIntArray(String)}, answering repeated
+     * inputs from {@code cache} instead of parsing and sorting them again.
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @param cache shared cache of sorted results, e.g. one per application
+     * @return sorted array of integers
+     * @throws NumberFormatException if input contains non-numeric values
+     */
+    public static int[] processInputToIntArray(String input, ResultCache cache) {
+        return cache.processToIntArray(input);
+    }
+
+    /**
+     * Returns the {@code n} smallest integers of the input in ascending order, i.e. the first
+     * {@code n} values of {@link #processInputToIntArray(String)}, without sorting the rest.
+     * The values stream from the tokenizer into a bounded heap, so only {@code n} are stored.
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @param n number of values to return
+     * @return at most {@code n} integers, ascending
+     * @throws NumberFormatException if input contains non-numeric values
+     * @throws IllegalArgumentException if n is negative
+     */
+    public static int[] smallest(String input, int n) {
+        PartialSort.TopK selection = PartialSort.TopK.smallest(n);
+        IntTokenizer.forEach(input, 0, input.length(), selection);
+        return selection.toSortedArray();
+    }
+
+    /**
+     * Returns the {@code n} largest integers of the input in descending order (top-N), without
+     * sorting the rest. Only {@code n} values are stored.
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @param n number of values to return
+     * @return at most {@code n} integers, descending
+     * @throws NumberFormatException if input contains non-numeric values
+     * @throws IllegalArgumentException if n is negative
+     */
+    public static int[] largest(String input, int n) {
+        PartialSort.TopK selection = PartialSort.TopK.largest(n);
+        IntTokenizer.forEach(input, 0, input.length(), selection);
+        return selection.toSortedArray();
+    }
+
+    /**
+     * Returns the k-th smallest integer of the input (k = 1 is the minimum), found with
+     * introselect in expected linear time instead of a full sort.
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @param k 1-based rank of the value to return
+     * @return the value that {@code processInputToIntArray(input)[k - 1]} would hold
+     * @throws NumberFormatException if input contains non-numeric values
+     * @throws IllegalArgumentException if k is not between 1 and the number of integers
+     */
+    public static int kthSmallest(String input, int k) {
+        IntList values = parseInts(input);
+        if (k < 1 || k > values.size()) {
+            throw new IllegalArgumentException("k must be between 1 and " + values.size() + ": " + k);
+        }
+        return PartialSort.select(values.array(), 0, values.size(), k - 1);
+    }
+
+    /**
+     * Returns the distinct integers of the input in ascending order, the same order as
+     * {@link #processInput(String)} without the duplicates.
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @return sorted unique integers
+     * @throws NumberFormatException if input contains non-numeric values
+     */
+    public static int[] distinct(String input) {
+        return frequencies(input).values();
+    }
+
+    /**
+     * Counts how often each integer occurs in the input, in ascending value order.
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @return the distinct values and their counts, e.g. {@code {1=2, 2=2, 3=2}}
+     * @throws NumberFormatException if input contains non-numeric values
+     */
+    public static Frequencies frequencies(String input) {
+        IntList values = parseInts(input);
+        return Frequencies.of(values.array(), 0, values.size());
+    }
+
+    /**
+     * Processes input string and returns the sorted integers encoded in a binary format, ready
+     * for jobs that read {@link BinaryCodec} data instead of parsing text.
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @param format {@link BinaryCodec.Format#RAW} or the compact {@link BinaryCodec.Format#DELTA}
+     * @return the encoded sorted values
+     * @throws NumberFormatException if input contains non-numeric values
+     */
+    public static byte[] processInputToBinary(String input, BinaryCodec.Format format) {
+        int[] sorted = processInputToIntArray(input);
+        return BinaryCodec.encode(sorted, 0, sorted.length, format);
+    }
+
+    /**
+     * Decodes binary input and returns the values sorted, skipping decimal parsing altogether.
+     * 
+     * @param data the encoded integers, in any order
+     * @param format the encoding of the data
+     * @return sorted array of integers
+     * @throws IllegalArgumentException if the data ends inside a value or is malformed
+     */
+    public static int[] processBinaryInput(byte[] data, BinaryCodec.Format format) {
+        int[] values = BinaryCodec.decode(data, format);
+        SortStrategy.AUTO.sort(values, 0, values.length);
+        return values;
+    }
+
+    /**
+     * Processes input string of 64-bit integers and returns them sorted as a primitive array,
+     * through the long-specialized parse and sort path (no boxing).
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @return sorted array of longs
+     * @throws NumberFormatException if input contains values that are not longs
+     */
+    public static long[] processInputToLongArray(String input) {
+        return processInputToLongArray(input, SortStrategy.AUTO);
+    }
+
+    /**
+     * Processes input string of 64-bit integers and returns them sorted with the given algorithm.
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @param strategy the sorting algorithm for the processing layer
+     * @return sorted array of longs
+     * @throws NumberFormatException if input contains values that are not longs
+     */
+    public static long[] processInputToLongArray(String input, SortStrategy strategy) {
+        LongList values = new LongList(IntTokenizer.countTokens(input, 0, input.length()));
+        WideTokenizer.parseLongs(input, 0, input.length(), values);
+        return values.sort(strategy).toArray();
+    }
+
+    /**
+     * Processes input string of integers of any size and returns them sorted.
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @return sorted array of BigIntegers
+     * @throws NumberFormatException if input contains non-numeric values
+     */
+    public static BigInteger[] processInputToBigIntegerArray(String input) {
+        BigInteger[] values = WideTokenizer.parseBigIntegers(input, 0, input.length());
+        Arrays.sort(values);
+        return values;
+    }
+
+    /**
+     * Returns the narrowest integer width that holds every value of the input.
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @return {@link NumberWidth#INT}, {@link NumberWidth#LONG} or {@link NumberWidth#BIG_INTEGER}
+     */
+    public static NumberWidth detectWidth(String input) {
+        return NumberWidth.detect(input);
+    }
+
+    /**
+     * Parses every integer in the input into a primitive buffer, in input order.
+     * 
+     * @param input the characters containing integers separated by spaces or commas
+     * @return unsorted buffer of parsed integers
+     * @throws NumberFormatException if input contains non-numeric values
+     */
+    static IntList parseInts(CharSequence input) {
+        // PARSING LAYER: single-pass IntTokenizer instead of input.split("[ ,]+") + Integer.parseInt().
+        // Tokens are converted straight from the characters, so no String[] or substrings are created.
+        // STORAGE LAYER: int[] instead of LinkedList<Integer> (no nodes, no boxing), allocated
+        // once at the size found by a quick delimiter pre-scan instead of grown copy by copy
+        IntList values = new IntList(IntTokenizer.countTokens(input, 0, input.length()));
+        IntTokenizer.parseInto(input, 0, input.length(), values);
+        return values;
     }
 
     /**
@@ -138,18 +865,15 @@ public class UserInput {
      * @return true if all tokens are valid integers, false otherwise
      */
     public static boolean isValidInput(String input) {
-        if (input == null || input.trim().isEmpty()) {
+        if (input == null || IntTokenizer.isBlank(input)) {
             return false;
         }
         
-        String[] tokens = input.split("[ ,]+");
-        for (String token : tokens) {
-            if (!token.trim().isEmpty()) {
-                try {
-                    Integer.parseInt(token.trim());
-                } catch (NumberFormatException e) {
-                    return false;
-                }
+        IntTokenizer tokens = new IntTokenizer(input, true);
+        int state;
+        while ((state = tokens.next()) != IntTokenizer.END) {
+            if (state == IntTokenizer.INVALID) {
+                return false;
             }
         }
         return true;
@@ -162,22 +886,44 @@ public class UserInput {
      * @return number of valid integers found
      */
     public static int countIntegers(String input) {
-        if (input == null || input.trim().isEmpty()) {
+        if (input == null || IntTokenizer.isBlank(input)) {
             return 0;
         }
         
-        String[] tokens = input.split("[ ,]+");
+        IntTokenizer tokens = new IntTokenizer(input, true);
         int count = 0;
-        for (String token : tokens) {
-            if (!token.trim().isEmpty()) {
-                try {
-                    Integer.parseInt(token.trim());
-                    count++;
-                } catch (NumberFormatException e) {
-                    // Skip invalid tokens
-                }
+        int state;
+        while ((state = tokens.next()) != IntTokenizer.END) {
+            if (state == IntTokenizer.INT) {
+                count++;
             }
+            // Skip invalid tokens
         }
         return count;
     }
-}
\ No newline at end of file
+
+    /**
+     * Validates, counts and parses the input in a single tokenizing pass. Use this instead of
+     * calling {@link #isValidInput(String)}, {@link #countIntegers(String)} and
+     * {@link #processInput(String)} on the same string; the values are only sorted if the
+     * sorted result is requested.
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @return the analysis of the input
+     */
+    public static InputAnalysis analyzeInput(String input) {
+        return analyzeInput(input, SortStrategy.AUTO);
+    }
+
+    /**
+     * Validates, counts and parses the input in a single tokenizing pass, sorting with the
+     * given algorithm if the sorted result is requested.
+     * 
+     * @param input the input string containing integers separated by spaces or commas
+     * @param strategy the sorting algorithm for the processing layer
+     * @return the analysis of the input
+     */
+    public static InputAnalysis analyzeInput(String input, SortStrategy strategy) {
+        return InputAnalysis.analyze(input, strategy);
+    }
+}
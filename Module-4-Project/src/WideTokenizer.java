@@ -0,0 +1,136 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PARSING LAYER for integers wider than {@code int}: the {@link NumberWidth#LONG} and
+ * {@link NumberWidth#BIG_INTEGER} counterparts of {@link IntTokenizer#parseInto}.
+ *
+ * <p>Delimiters and token rules are the same as for {@link UserInput#processInput(String)}:
+ * runs of spaces and commas separate tokens, whitespace-only tokens are skipped, and a token is
+ * converted as {@link Long#parseLong(String)} (or {@code new BigInteger(String)}) would, so an
+ * invalid token fails with the same {@code For input string: "..."} message.
+ *
+ * <p>{@link #parseLongs} has the same fast path as {@link IntTokenizer}: an optional sign and
+ * ASCII digits are accumulated straight into a {@code long} with an overflow check, without
+ * creating a {@code String} per token.
+ */
+public final class WideTokenizer {
+
+    /** Overflow guard; identical for both signs because |MIN_VALUE| / 10 == MAX_VALUE / 10. */
+    private static final long MULTMIN = -Long.MAX_VALUE / 10;
+
+    private WideTokenizer() {
+    }
+
+    /**
+     * Parses every token of {@code input[start, end)} as a {@code long} into {@code out}.
+     *
+     * @param input the characters to scan
+     * @param start index of the first character to scan
+     * @param end index one past the last character to scan
+     * @param out buffer receiving the values
+     * @throws NumberFormatException for the first token that is not a {@code long}
+     */
+    public static void parseLongs(CharSequence input, int start, int end, LongList out) {
+        int pos = start;
+        while (true) {
+            while (pos < end && IntTokenizer.isDelimiter(input.charAt(pos))) {
+                pos++;
+            }
+            if (pos >= end) {
+                return;
+            }
+            int tokenStart = pos;
+
+            // Fast path: optional sign followed by ASCII digits, ended by a delimiter or the end.
+            char c = input.charAt(pos);
+            boolean negative = false;
+            long limit = -Long.MAX_VALUE;
+            if (c == '-') {
+                negative = true;
+                limit = Long.MIN_VALUE;
+                pos++;
+            } else if (c == '+') {
+                pos++;
+            }
+            int digitsStart = pos;
+            long result = 0;
+            while (pos < end) {
+                c = input.charAt(pos);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                int digit = c - '0';
+                if (result < MULTMIN) {
+                    break;
+                }
+                result *= 10;
+                if (result < limit + digit) {
+                    break;
+                }
+                result -= digit;
+                pos++;
+            }
+            if (pos > digitsStart && (pos == end || IntTokenizer.isDelimiter(input.charAt(pos)))) {
+                out.add(negative ? result : -result);
+                continue;
+            }
+
+            // Slow path: whitespace, non-ASCII digits, overflow or garbage.
+            pos = tokenEnd(input, tokenStart, end);
+            if (!isBlank(input, tokenStart, pos)) {
+                out.add(Long.parseLong(input.subSequence(tokenStart, pos).toString()));
+            }
+        }
+    }
+
+    /**
+     * Parses every token of {@code input[start, end)} as a {@link BigInteger}.
+     *
+     * @param input the characters to scan
+     * @param start index of the first character to scan
+     * @param end index one past the last character to scan
+     * @return the values in input order
+     * @throws NumberFormatException for the first token that is not an integer
+     */
+    public static BigInteger[] parseBigIntegers(CharSequence input, int start, int end) {
+        List<BigInteger> values = new ArrayList<>();
+        int pos = start;
+        while (true) {
+            while (pos < end && IntTokenizer.isDelimiter(input.charAt(pos))) {
+                pos++;
+            }
+            if (pos >= end) {
+                return values.toArray(new BigInteger[0]);
+            }
+            int tokenStart = pos;
+            pos = tokenEnd(input, tokenStart, end);
+            if (isBlank(input, tokenStart, pos)) {
+                continue;
+            }
+            String token = input.subSequence(tokenStart, pos).toString();
+            try {
+                values.add(new BigInteger(token));
+            } catch (NumberFormatException e) {
+                throw new NumberFormatException("For input string: \"" + token + "\"");
+            }
+        }
+    }
+
+    private static int tokenEnd(CharSequence input, int pos, int end) {
+        while (pos < end && !IntTokenizer.isDelimiter(input.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isBlank(CharSequence input, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (input.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
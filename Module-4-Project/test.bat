@@ -4,7 +4,7 @@ echo =================================
 
 echo.
 echo Compiling source code...
-javac src/UserInput.java
+javac src/*.java
 if %ERRORLEVEL% NEQ 0 (
     echo ERROR: Source compilation failed!
     pause
@@ -12,6 +12,19 @@ if %ERRORLEVEL% NEQ 0 (
 )
 echo ✅ Source compilation successful!
 
+java --list-modules 2>nul | findstr /b "jdk.incubator.vector@" >nul
+if %ERRORLEVEL% EQU 0 (
+    javac --add-modules jdk.incubator.vector -cp src -d src src-vector\*.java
+    if errorlevel 1 (
+        echo ERROR: Vector API kernel compilation failed!
+        pause
+        exit /b 1
+    )
+    echo ✅ Vector API kernels compiled
+) else (
+    echo jdk.incubator.vector not available, the scalar kernels will be used
+)
+
 echo.
 echo Compiling test code...
 javac -cp "src;test" test/java/SimpleTest.java
@@ -5,13 +5,24 @@ echo "====================================="
 
 echo ""
 echo "Compiling source code..."
-javac -cp "src" src/UserInput.java
+javac -cp "src" src/*.java
 if [ $? -ne 0 ]; then
     echo "ERROR: Source compilation failed!"
     exit 1
 fi
 echo "✅ Source compilation successful!"
 
+if java --list-modules 2>/dev/null | grep -q "^jdk.incubator.vector@"; then
+    javac --add-modules jdk.incubator.vector -cp src -d src src-vector/*.java
+    if [ $? -ne 0 ]; then
+        echo "ERROR: Vector API kernel compilation failed!"
+        exit 1
+    fi
+    echo "✅ Vector API kernels compiled"
+else
+    echo "ℹ️  jdk.incubator.vector not available, the scalar kernels will be used"
+fi
+
 echo ""
 echo "Compiling test code..."
 javac -cp "src:test" test/java/*.java
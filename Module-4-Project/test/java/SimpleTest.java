@@ -21,6 +21,33 @@ public class SimpleTest {
         testEmptyInput();
         testInvalidInput();
         testLargeInput();
+        testIntBoundaries();
+        testValidationAndCount();
+        testIntArrayResult();
+        testSortStrategies();
+        testParallelSort();
+        testParallelParse();
+        testStreamingParse();
+        testExternalSort();
+        testMappedFileParse();
+        testOutputWriter();
+        testBatchProcessor();
+        testProcessorRelease();
+        testInputAnalysis();
+        testPresizing();
+        testConcurrentCollector();
+        testCollectorRelease();
+        testSortServer();
+        testSortedIntList();
+        testPartialSort();
+        testFrequencies();
+        testBinaryCodec();
+        testWideNumbers();
+        testPipelineMetrics();
+        testSortPath();
+        testIntKernels();
+        testOffHeapIntList();
+        testResultCache();
         
         // Print results
         System.out.println("==========================================");
@@ -175,4 +202,1061 @@ public class SimpleTest {
             testsFailed++;
         }
     }
+    
+    private static void testIntBoundaries() {
+        try {
+            var result = UserInput.processInput("2147483647,-2147483648 +7");
+            var expected = java.util.Arrays.asList(-2147483648, 7, 2147483647);
+            if (!result.equals(expected)) {
+                System.out.println("❌ Int boundaries test failed");
+                testsFailed++;
+                return;
+            }
+            UserInput.processInput("1 2147483648");
+            System.out.println("❌ Int boundaries test failed - overflow should have thrown exception");
+            testsFailed++;
+        } catch (NumberFormatException e) {
+            if ("For input string: \"2147483648\"".equals(e.getMessage())) {
+                System.out.println("✅ Int boundaries test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Int boundaries test failed with message: " + e.getMessage());
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Int boundaries test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+    
+    private static void testValidationAndCount() {
+        try {
+            boolean passed = UserInput.isValidInput(" 1, 2 ,3 ")
+                && !UserInput.isValidInput("1 x 3")
+                && !UserInput.isValidInput("   ")
+                && !UserInput.isValidInput(null)
+                && UserInput.countIntegers("1 x 3,-,4") == 3
+                && UserInput.countIntegers(null) == 0;
+            if (passed) {
+                System.out.println("✅ Validation and count test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Validation and count test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Validation and count test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+    
+    private static void testIntArrayResult() {
+        try {
+            int[] result = UserInput.processInputToIntArray("3,1 2 2");
+            var view = UserInput.processInput("3,1 2 2");
+            if (java.util.Arrays.equals(result, new int[] {1, 2, 2, 3})
+                    && view.toString().equals("[1, 2, 2, 3]")
+                    && view instanceof java.util.RandomAccess
+                    && UserInput.processInputToIntArray("").length == 0) {
+                System.out.println("✅ Int array result test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Int array result test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Int array result test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+    
+    private static void testSortStrategies() {
+        try {
+            java.util.Random random = new java.util.Random(42);
+            StringBuilder wide = new StringBuilder();
+            StringBuilder narrow = new StringBuilder();
+            for (int i = 0; i < 5000; i++) {
+                wide.append(random.nextInt()).append(' ');
+                narrow.append(random.nextInt(100) - 50).append(',');
+            }
+            boolean passed = true;
+            for (String input : new String[] {wide.toString(), narrow.toString(), "9 -1 4"}) {
+                int[] expected = UserInput.processInputToIntArray(input, SortStrategy.COMPARISON);
+                passed &= java.util.Arrays.equals(expected, UserInput.processInputToIntArray(input, SortStrategy.RADIX));
+                passed &= java.util.Arrays.equals(expected, UserInput.processInputToIntArray(input, SortStrategy.AUTO));
+            }
+            passed &= java.util.Arrays.equals(
+                UserInput.processInputToIntArray(narrow.toString(), SortStrategy.COMPARISON),
+                UserInput.processInputToIntArray(narrow.toString(), SortStrategy.COUNTING));
+            passed &= SortStrategy.choose(5000, -50, 49) == SortStrategy.COUNTING
+                && SortStrategy.choose(5000, Integer.MIN_VALUE, Integer.MAX_VALUE) == SortStrategy.RADIX
+                && SortStrategy.choose(10, 0, 5) == SortStrategy.COMPARISON;
+            if (passed) {
+                System.out.println("✅ Sort strategies test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Sort strategies test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Sort strategies test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+    
+    private static void testParallelSort() {
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+        try {
+            java.util.Random random = new java.util.Random(7);
+            int[] values = new int[200_000];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt();
+            }
+            int[] expected = values.clone();
+            java.util.Arrays.sort(expected);
+            int[] actual = values.clone();
+            ParallelSort.sort(actual, 0, actual.length, SortStrategy.RADIX, 10_000, pool);
+            var small = UserInput.processInput("4 2 9", SortStrategy.AUTO, 1000);
+            if (java.util.Arrays.equals(expected, actual) && small.equals(java.util.Arrays.asList(2, 4, 9))) {
+                System.out.println("✅ Parallel sort test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Parallel sort test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Parallel sort test failed with exception: " + e.getMessage());
+            testsFailed++;
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    private static void testParallelParse() {
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 100_000; i++) {
+                sb.append(i % 3 == 0 ? ", " : " ").append(100_000 - i);
+            }
+            String input = sb.toString();
+            int[] expected = UserInput.processInputToIntArray(input);
+            int[] inOrder = ParallelParser.parse(input, pool).toArray();
+            int[] merged = ParallelParser.parseSorted(input, SortStrategy.AUTO, pool).toArray();
+            java.util.Arrays.sort(inOrder);
+            boolean passed = java.util.Arrays.equals(expected, inOrder) && java.util.Arrays.equals(expected, merged);
+            // Two invalid tokens in different chunks: the first one in the input must be reported.
+            String invalid = "bad1 " + input + " bad2";
+            try {
+                ParallelParser.parse(invalid, pool);
+                passed = false;
+            } catch (NumberFormatException e) {
+                passed &= "For input string: \"bad1\"".equals(e.getMessage());
+            }
+            if (passed) {
+                System.out.println("✅ Parallel parse test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Parallel parse test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Parallel parse test failed with exception: " + e.getMessage());
+            testsFailed++;
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    private static void testStreamingParse() {
+        try {
+            String text = "12 -7,, 300 +4\r\n5 6\n";
+            // A 3-byte buffer forces tokens to be carried across buffer boundaries.
+            StreamingParser parser = new StreamingParser(
+                new java.io.ByteArrayInputStream(text.getBytes(java.nio.charset.StandardCharsets.US_ASCII)), 3);
+            IntList first = new IntList();
+            IntList second = new IntList();
+            boolean passed = parser.readLine(first) && parser.readLine(second) && !parser.readLine(new IntList())
+                && java.util.Arrays.equals(first.toArray(), new int[] {12, -7, 300, 4})
+                && java.util.Arrays.equals(second.toArray(), new int[] {5, 6});
+            try {
+                StreamingParser.parseLine(new java.io.ByteArrayInputStream("1 2x 3".getBytes(java.nio.charset.StandardCharsets.US_ASCII)));
+                passed = false;
+            } catch (NumberFormatException e) {
+                passed &= "For input string: \"2x\"".equals(e.getMessage());
+            }
+            if (passed) {
+                System.out.println("✅ Streaming parse test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Streaming parse test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Streaming parse test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+    
+    private static void testExternalSort() {
+        try {
+            java.util.Random random = new java.util.Random(11);
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 50_000; i++) {
+                sb.append(random.nextInt(2000) - 1000).append(i % 2 == 0 ? " " : ",");
+            }
+            String input = sb.toString();
+            java.nio.file.Path tempDir = java.nio.file.Files.createTempDirectory("external-sort-test");
+            IntList sorted = new IntList();
+            int spilled;
+            // A 64 KB budget gives 8192-value runs and a fan-in of 2, forcing several merge passes.
+            try (ExternalSort sorter = new ExternalSort(64 << 10, tempDir, SortStrategy.AUTO)) {
+                IntTokenizer tokens = new IntTokenizer(input, false);
+                while (tokens.next() == IntTokenizer.INT) {
+                    sorter.accept(tokens.value());
+                }
+                spilled = sorter.spilledRuns();
+                sorter.finish(sorted);
+            }
+            boolean cleanedUp;
+            try (var files = java.nio.file.Files.list(tempDir)) {
+                cleanedUp = files.count() == 0;
+            }
+            java.nio.file.Files.delete(tempDir);
+            if (spilled > 2 && cleanedUp
+                    && java.util.Arrays.equals(UserInput.processInputToIntArray(input), sorted.toArray())) {
+                System.out.println("✅ External sort test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ External sort test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ External sort test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+    
+    private static void testMappedFileParse() {
+        try {
+            java.util.Random random = new java.util.Random(5);
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 20_000; i++) {
+                sb.append(random.nextInt()).append(i % 3 == 0 ? "\n" : i % 3 == 1 ? ", " : " ");
+            }
+            String input = sb.toString();
+            java.nio.file.Path file = java.nio.file.Files.createTempFile("mapped-parse-test", ".txt");
+            java.nio.file.Path badFile = java.nio.file.Files.createTempFile("mapped-parse-test", ".txt");
+            try {
+                java.nio.file.Files.write(file, input.getBytes(java.nio.charset.StandardCharsets.US_ASCII));
+                java.nio.file.Files.write(badFile, (input + "x1 2 y3").getBytes(java.nio.charset.StandardCharsets.US_ASCII));
+                int[] expected = UserInput.parseInts(input.replace('\n', ' ')).toArray();
+                java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+                // 4 KB windows split the file into dozens of mapped pieces.
+                IntList parsed = MappedFileParser.parse(file, 4096, pool);
+                IntList streamed = new IntList();
+                MappedFileParser.forEach(file, streamed);
+                String message = null;
+                try {
+                    MappedFileParser.parse(badFile, 4096, pool);
+                } catch (NumberFormatException e) {
+                    message = e.getMessage();
+                }
+                pool.shutdown();
+                if (java.util.Arrays.equals(expected, parsed.toArray())
+                        && java.util.Arrays.equals(expected, streamed.toArray())
+                        && "For input string: \"x1\"".equals(message)) {
+                    System.out.println("✅ Mapped file parse test passed");
+                    testsPassed++;
+                } else {
+                    System.out.println("❌ Mapped file parse test failed");
+                    testsFailed++;
+                }
+            } finally {
+                java.nio.file.Files.delete(file);
+                java.nio.file.Files.delete(badFile);
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Mapped file parse test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+    
+    private static void testOutputWriter() {
+        try {
+            java.util.Random random = new java.util.Random(9);
+            int[] values = new int[5_000];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = i % 10 == 0 ? random.nextInt() : random.nextInt(2001) - 1000;
+            }
+            values[0] = Integer.MIN_VALUE;
+            values[1] = Integer.MAX_VALUE;
+            values[2] = 0;
+            IntList list = new IntList();
+            for (int value : values) {
+                list.add(value);
+            }
+            String expected = "User Entered: " + list.asList() + System.lineSeparator() + "[]";
+            // A 16-byte buffer drains to the stream on almost every element.
+            java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+            IntListWriter out = new IntListWriter(bytes, 16);
+            out.write("User Entered: ");
+            out.writeList(list);
+            out.newLine();
+            out.beginList();
+            out.endList();
+            out.flush();
+            java.io.ByteArrayOutputStream streamed = new java.io.ByteArrayOutputStream();
+            IntListWriter streamingOut = new IntListWriter(streamed);
+            streamingOut.beginList();
+            for (int value : values) {
+                streamingOut.accept(value);
+            }
+            streamingOut.endList();
+            streamingOut.flush();
+            if (expected.equals(bytes.toString())
+                    && list.asList().toString().equals(streamed.toString())) {
+                System.out.println("✅ Output writer test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Output writer test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Output writer test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+    
+    private static void testBatchProcessor() {
+        try {
+            java.util.Random random = new java.util.Random(17);
+            java.util.List<String> lines = new java.util.ArrayList<>();
+            for (int n : new int[] {0, 1, 5, 300, 5000, 20, 70_000, 3}) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < n; i++) {
+                    // Alternate narrow and wide ranges so counting and radix sort reuse their buffers.
+                    sb.append(n % 2 == 0 ? random.nextInt() : random.nextInt(100)).append(i % 2 == 0 ? " " : ", ");
+                }
+                lines.add(sb.toString());
+            }
+            InputProcessor processor = new InputProcessor();
+            java.util.List<int[]> results = processor.processAllToIntArrays(lines);
+            java.util.List<String> streamed = new java.util.ArrayList<>();
+            processor.processAll(lines, (sorted, size) ->
+                    streamed.add(java.util.Arrays.toString(java.util.Arrays.copyOf(sorted, size))));
+            boolean matches = results.size() == lines.size();
+            for (int i = 0; matches && i < lines.size(); i++) {
+                int[] expected = UserInput.parseInts(lines.get(i)).sort(SortStrategy.COMPARISON).toArray();
+                matches = java.util.Arrays.equals(expected, results.get(i))
+                        && java.util.Arrays.toString(expected).equals(streamed.get(i))
+                        && processor.process(lines.get(i)).equals(UserInput.processInput(lines.get(i)));
+            }
+            boolean rejected = false;
+            try {
+                processor.processToIntArray("1 2 x");
+            } catch (NumberFormatException e) {
+                rejected = "For input string: \"x\"".equals(e.getMessage());
+            }
+            if (matches && rejected && java.util.Arrays.equals(new int[] {1, 2}, processor.processToIntArray("2,1"))) {
+                System.out.println("✅ Batch processor test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Batch processor test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Batch processor test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+    
+    private static void testProcessorRelease() {
+        try {
+            InputProcessor processor = new InputProcessor();
+            StringBuilder line = new StringBuilder();
+            java.util.Random rnd = new java.util.Random(11);
+            for (int i = 0; i < InputProcessor.MAX_RETAINED_INTS + 1000; i++) {
+                line.append(rnd.nextInt()).append(' ');
+            }
+            String valid = line.toString();
+            String invalid = valid + "x";
+            boolean rejected = false;
+            try {
+                processor.processToIntArray(invalid);
+            } catch (NumberFormatException e) {
+                rejected = processor.retainedCapacity() <= InputProcessor.MAX_RETAINED_INTS;
+            }
+            boolean consumerFailed = false;
+            try {
+                processor.process(valid, (int value) -> {
+                    throw new IllegalStateException("consumer failed");
+                });
+            } catch (IllegalStateException e) {
+                consumerFailed = processor.retainedCapacity() <= InputProcessor.MAX_RETAINED_INTS;
+            }
+            boolean batchFailed = false;
+            try {
+                processor.processAll(java.util.Arrays.asList(valid, invalid), (sorted, size) -> { });
+            } catch (NumberFormatException e) {
+                batchFailed = processor.retainedCapacity() <= InputProcessor.MAX_RETAINED_INTS;
+            }
+            // a server connection keeps its processor after answering ERROR for a rejected line
+            boolean sinkRejected = false;
+            try {
+                processor.process(invalid, (sorted, size) -> { });
+            } catch (NumberFormatException e) {
+                sinkRejected = processor.retainedCapacity() <= InputProcessor.MAX_RETAINED_INTS;
+            }
+            if (rejected && consumerFailed && batchFailed && sinkRejected) {
+                System.out.println("✅ Processor release test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Processor release test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Processor release test failed: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+
+    private static void testInputAnalysis() {
+        try {
+            String[] inputs = {"5 3, 9,1", "", "   ", "1 \t7 2", "4 abc 2 x", ",,", "2147483648 1"};
+            boolean matches = true;
+            for (String input : inputs) {
+                InputAnalysis analysis = UserInput.analyzeInput(input);
+                String expected;
+                try {
+                    expected = UserInput.processInput(input).toString();
+                } catch (NumberFormatException e) {
+                    expected = e.getMessage();
+                }
+                String actual;
+                try {
+                    actual = analysis.sortedList().toString();
+                } catch (NumberFormatException e) {
+                    actual = e.getMessage();
+                }
+                matches &= analysis.isValid() == UserInput.isValidInput(input)
+                        && analysis.count() == UserInput.countIntegers(input)
+                        && expected.equals(actual);
+            }
+            InputAnalysis invalid = UserInput.analyzeInput("4 abc 2 x");
+            InputAnalysis nullInput = UserInput.analyzeInput(null);
+            if (matches && invalid.firstInvalidPosition() == 2 && invalid.count() == 2
+                    && UserInput.analyzeInput("3 1").firstInvalidPosition() == -1
+                    && java.util.Arrays.equals(new int[] {1, 3}, UserInput.analyzeInput("3 1").sortedValues())
+                    && !nullInput.isValid() && nullInput.count() == 0) {
+                System.out.println("✅ Input analysis test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Input analysis test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Input analysis test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+    
+    private static void testPresizing() {
+        try {
+            String input = " 5,, 3 ,9 -1,  7 ";
+            boolean counts = IntTokenizer.countTokens(input, 0, input.length()) == 5
+                    && IntTokenizer.countTokens("", 0, 0) == 0
+                    && IntTokenizer.countTokens(",,  ,", 0, 5) == 0
+                    && IntTokenizer.countTokens("12 34", 1, 4) == 2;
+            IntList presized = UserInput.parseInts(input);
+            IntList hinted = new IntList();
+            hinted.ensureCapacity(1000);
+            int[] hintedArray = hinted.array();
+            for (int i = 0; i < 1000; i++) {
+                hinted.add(i);
+            }
+            IntList streamed = StreamingParser.parseLine(
+                    new java.io.ByteArrayInputStream("4 2,9\n".getBytes()), 3);
+            InputProcessor processor = new InputProcessor(SortStrategy.AUTO, 8);
+            // a line longer than the retained buffers is sized once from the pre-scan, not grown
+            int longSize = InputProcessor.MAX_RETAINED_INTS + 1000;
+            int[] longBuffer = new int[1];
+            processor.process("7 ".repeat(longSize), (sorted, size) -> longBuffer[0] = sorted.length);
+            if (counts && presized.array().length == 5 && presized.size() == 5
+                    && longBuffer[0] == longSize
+                    && hinted.array() == hintedArray
+                    && streamed.array().length == 3 && streamed.size() == 3
+                    && java.util.Arrays.equals(new int[] {-1, 3, 5, 7, 9}, processor.processToIntArray(input))) {
+                System.out.println("✅ Presizing test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Presizing test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Presizing test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+    
+    private static void testConcurrentCollector() {
+        try {
+            ConcurrentIntCollector collector = new ConcurrentIntCollector(4);
+            int producers = 4;
+            int perProducer = 25_000;
+            Thread[] threads = new Thread[producers];
+            for (int t = 0; t < producers; t++) {
+                final int id = t;
+                threads[t] = new Thread(() -> {
+                    if (id % 2 == 0) {
+                        ConcurrentIntCollector.Producer producer = collector.newProducer();
+                        for (int i = 0; i < perProducer; i++) {
+                            producer.accept(i * producers + id);
+                        }
+                    } else {
+                        for (int i = 0; i < perProducer; i++) {
+                            collector.accept(i * producers + id);
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long collected = collector.size();
+            IntList sorted = collector.sort(SortStrategy.AUTO, 1 << 12);
+            boolean ordered = sorted.size() == producers * perProducer;
+            for (int i = 0; ordered && i < sorted.size(); i++) {
+                ordered = sorted.get(i) == i;
+            }
+            boolean rejected = false;
+            try {
+                collector.accept(1);
+            } catch (IllegalStateException e) {
+                rejected = true;
+            }
+            if (ordered && rejected && collected == producers * perProducer && collector.isSealed()) {
+                System.out.println("✅ Concurrent collector test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Concurrent collector test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Concurrent collector test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+
+    private static void testCollectorRelease() {
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newSingleThreadExecutor();
+        try {
+            // a pooled thread outlives the collector it fed through accept(int)
+            ConcurrentIntCollector collector = new ConcurrentIntCollector();
+            ConcurrentIntCollector[] shared = {collector};
+            pool.submit(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    shared[0].accept(i);
+                }
+            }).get();
+            ConcurrentIntCollector.Producer producer = collector.newProducer();
+            producer.addAll(new int[] {3, 1, 2}, 0, 3);
+            boolean sealed = collector.seal().size() == 100_003 && producer.capacity() == 0;
+            java.lang.ref.WeakReference<ConcurrentIntCollector> weak = new java.lang.ref.WeakReference<>(collector);
+            collector = null;
+            shared[0] = null;
+            for (int i = 0; i < 20 && weak.get() != null; i++) {
+                System.gc();
+                Thread.sleep(10);
+            }
+            if (sealed && weak.get() == null) {
+                System.out.println("✅ Collector release test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Collector release test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Collector release test failed: " + e.getMessage());
+            testsFailed++;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void testSortServer() {
+        try (SortServer server = SortServer.start(SortServer.parseAddress("0"), SortStrategy.AUTO)) {
+            String[] responses = new String[3];
+            try (java.nio.channels.SocketChannel channel = java.nio.channels.SocketChannel.open(server.address())) {
+                java.io.OutputStream out = java.nio.channels.Channels.newOutputStream(channel);
+                // three pipelined requests, one of them invalid
+                out.write("5 3,1\n4 x\n\n".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                java.io.BufferedReader in = new java.io.BufferedReader(new java.io.InputStreamReader(
+                        java.nio.channels.Channels.newInputStream(channel), java.nio.charset.StandardCharsets.UTF_8));
+                for (int i = 0; i < responses.length; i++) {
+                    responses[i] = in.readLine();
+                }
+            }
+            SortLoadGenerator.Report report = SortLoadGenerator.run(server.address(), 50, 20, 16);
+            // a line the strategy cannot sort is answered with ERROR, and the connection stays usable
+            String[] counting = new String[2];
+            try (SortServer countingServer = SortServer.start(SortServer.parseAddress("0"), SortStrategy.COUNTING);
+                    java.nio.channels.SocketChannel channel = java.nio.channels.SocketChannel.open(countingServer.address())) {
+                java.nio.channels.Channels.newOutputStream(channel)
+                        .write("1 2000000000\n3 1 2\n".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                java.io.BufferedReader in = new java.io.BufferedReader(new java.io.InputStreamReader(
+                        java.nio.channels.Channels.newInputStream(channel), java.nio.charset.StandardCharsets.UTF_8));
+                for (int i = 0; i < counting.length; i++) {
+                    counting[i] = in.readLine();
+                }
+            }
+            if ("[1, 3, 5]".equals(responses[0])
+                    && counting[0] != null && counting[0].startsWith("ERROR Value range")
+                    && "[1, 2, 3]".equals(counting[1])
+                    && "ERROR For input string: \"x\"".equals(responses[1])
+                    && "[]".equals(responses[2])
+                    && report.requests() == 1000 && report.failures() == 0
+                    && server.requestsServed() == 1003) {
+                System.out.println("✅ Sort server test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Sort server test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Sort server test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+
+    private static void testSortedIntList() {
+        try {
+            SortedIntList sorted = new SortedIntList(SortStrategy.AUTO, 4);
+            sorted.addAll("5 3 9");
+            sorted.addAll("4,1");
+            for (int i = 0; i < 20; i++) {
+                sorted.add(i % 3 == 0 ? 7 : 100 + i);
+            }
+            int[] batch = {8, 2, 7};
+            sorted.addAll(batch, 0, batch.length);
+            boolean rejected = false;
+            try {
+                sorted.addAll("6 x");
+            } catch (NumberFormatException e) {
+                rejected = true;
+            }
+            boolean removed = sorted.remove(7) && !sorted.remove(6);
+            int[] expected = new int[] {1, 2, 3, 4, 5, 7, 7, 7, 7, 7, 7, 7, 8, 9};
+            boolean ordered = java.util.Arrays.equals(java.util.Arrays.copyOf(sorted.toArray(), expected.length), expected);
+            if (ordered && rejected && removed && sorted.size() == 27
+                    && sorted.rank(5) == 4 && sorted.rank(7) == 5
+                    && sorted.countInRange(3, 7) == 10 && sorted.get(13) == 9
+                    && sorted.min() == 1 && sorted.max() == 119
+                    && batch[0] == 8) {
+                System.out.println("✅ Sorted int list test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Sorted int list test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Sorted int list test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+
+    private static void testPartialSort() {
+        try {
+            String input = "5 -1,9 3 9 0 7";
+            int[] smallest = UserInput.smallest(input, 3);
+            int[] largest = UserInput.largest(input, 2);
+            int[] all = UserInput.smallest(input, 100);
+            boolean kth = UserInput.kthSmallest(input, 1) == -1
+                    && UserInput.kthSmallest(input, 4) == 5
+                    && UserInput.kthSmallest(input, 7) == 9;
+            boolean rejected = false;
+            try {
+                UserInput.kthSmallest(input, 8);
+            } catch (IllegalArgumentException e) {
+                rejected = true;
+            }
+            int[] values = new int[10_000];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = (i * 7919) % values.length;
+            }
+            boolean selected = PartialSort.select(values.clone(), 0, values.length, 1234) == 1234
+                    && PartialSort.select(new int[] {42, 5, 3, 1}, 1, 4, 1) == 1;
+            // k must lie inside [from, to), also just before from
+            boolean outside = false;
+            try {
+                PartialSort.select(new int[] {42, 5, 3, 1}, 1, 4, 0);
+            } catch (IndexOutOfBoundsException e) {
+                outside = true;
+            }
+            if (java.util.Arrays.equals(smallest, new int[] {-1, 0, 3}) && outside
+                    && java.util.Arrays.equals(largest, new int[] {9, 9})
+                    && java.util.Arrays.equals(all, UserInput.processInputToIntArray(input))
+                    && kth && rejected && selected) {
+                System.out.println("✅ Partial sort test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Partial sort test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Partial sort test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+
+    private static void testFrequencies() {
+        try {
+            Frequencies small = UserInput.frequencies("3 1 1,2 2 3");
+            int[] duplicated = new int[1000];
+            for (int i = 0; i < duplicated.length; i++) {
+                duplicated[i] = (i * 37) % 10 - 5;
+            }
+            Frequencies hashed = Frequencies.of(duplicated, 0, duplicated.length);
+            int[] unique = new int[1000];
+            for (int i = 0; i < unique.length; i++) {
+                unique[i] = unique.length - i;
+            }
+            Frequencies sorted = Frequencies.of(unique, 0, unique.length);
+            if ("{1=2, 2=2, 3=2}".equals(small.toString())
+                    && java.util.Arrays.equals(UserInput.distinct("1 1 2 2 3 3"), new int[] {1, 2, 3})
+                    && hashed.distinctCount() == 10 && hashed.countOf(-5) == 100 && hashed.countOf(7) == 0
+                    && hashed.total() == 1000
+                    && sorted.distinctCount() == 1000 && sorted.values()[0] == 1 && sorted.countOf(1000) == 1) {
+                System.out.println("✅ Frequencies test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Frequencies test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Frequencies test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+
+    private static void testBinaryCodec() {
+        try {
+            String input = "5 3,-1 3 2147483647 -2147483648";
+            int[] sorted = UserInput.processInputToIntArray(input);
+            byte[] raw = UserInput.processInputToBinary(input, BinaryCodec.Format.RAW);
+            byte[] delta = UserInput.processInputToBinary(input, BinaryCodec.Format.DELTA);
+            int[] dense = new int[10_000];
+            for (int i = 0; i < dense.length; i++) {
+                dense[i] = 1_000_000 + i;
+            }
+            byte[] compact = BinaryCodec.encode(dense, 0, dense.length, BinaryCodec.Format.DELTA);
+            boolean truncated = false;
+            try {
+                BinaryCodec.decode(java.util.Arrays.copyOf(raw, raw.length - 1), BinaryCodec.Format.RAW);
+            } catch (IllegalArgumentException e) {
+                truncated = true;
+            }
+            if (raw.length == 24 && raw[0] == 0 && raw[3] == (byte) 0x80
+                    && java.util.Arrays.equals(BinaryCodec.decode(raw, BinaryCodec.Format.RAW), sorted)
+                    && java.util.Arrays.equals(BinaryCodec.decode(delta, BinaryCodec.Format.DELTA), sorted)
+                    && java.util.Arrays.equals(UserInput.processBinaryInput(
+                            BinaryCodec.encode(new int[] {9, -4, 0}, 0, 3, BinaryCodec.Format.DELTA),
+                            BinaryCodec.Format.DELTA), new int[] {-4, 0, 9})
+                    && compact.length < dense.length + 4
+                    && java.util.Arrays.equals(BinaryCodec.decode(compact, BinaryCodec.Format.DELTA), dense)
+                    && truncated) {
+                System.out.println("✅ Binary codec test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Binary codec test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Binary codec test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+
+    private static void testWideNumbers() {
+        try {
+            long[] longs = UserInput.processInputToLongArray("3000000000, -9223372036854775808 7 -3000000000");
+            java.math.BigInteger[] big = UserInput.processInputToBigIntegerArray("99999999999999999999 -1 5");
+            String message = null;
+            try {
+                UserInput.processInputToLongArray("1 x");
+            } catch (NumberFormatException e) {
+                message = e.getMessage();
+            }
+            if (java.util.Arrays.equals(longs, new long[] {Long.MIN_VALUE, -3000000000L, 7, 3000000000L})
+                    && big.length == 3 && big[0].intValue() == -1 && big[2].toString().equals("99999999999999999999")
+                    && UserInput.detectWidth("1 2 -3") == NumberWidth.INT
+                    && UserInput.detectWidth("1 2147483648") == NumberWidth.LONG
+                    && UserInput.detectWidth("1 9223372036854775808 2147483648") == NumberWidth.BIG_INTEGER
+                    && "For input string: \"x\"".equals(message)) {
+                System.out.println("✅ Wide numbers test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Wide numbers test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Wide numbers test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+
+    private static void testPipelineMetrics() {
+        try {
+            PipelineMetrics.Summary summary = new PipelineMetrics.Summary();
+            int[] sorted = UserInput.processInputToIntArray("5 3,1 -2 3", SortStrategy.AUTO, PipelineMetrics.to(summary));
+            UserInput.processInputToIntArray("7 6", SortStrategy.AUTO, PipelineMetrics.to(summary));
+            long[] seen = new long[1];
+            PipelineMetrics custom = PipelineMetrics.to((stage, nanos, elements, bytes, allocated) -> seen[0] += elements);
+            UserInput.processInputToIntArray("4 4 4", SortStrategy.COMPARISON, custom);
+            boolean badPercentile = false;
+            try {
+                summary.percentileNanos(PipelineMetrics.Stage.PARSING, 101);
+            } catch (IllegalArgumentException e) {
+                badPercentile = true;
+            }
+            java.io.ByteArrayOutputStream printed = new java.io.ByteArrayOutputStream();
+            summary.print(new java.io.PrintStream(printed, true));
+            if (java.util.Arrays.equals(sorted, new int[] {-2, 1, 3, 3, 5})
+                    && java.util.Arrays.equals(UserInput.processInputToIntArray("2 1", SortStrategy.AUTO,
+                            PipelineMetrics.DISABLED), new int[] {1, 2})
+                    && summary.runs(PipelineMetrics.Stage.PARSING) == 2
+                    && summary.elements(PipelineMetrics.Stage.PROCESSING) == 7
+                    && summary.bytes(PipelineMetrics.Stage.PARSING) == 13
+                    && summary.runs(PipelineMetrics.Stage.INPUT) == 0
+                    && summary.totalNanos(PipelineMetrics.Stage.PROCESSING) > 0
+                    && summary.percentileNanos(PipelineMetrics.Stage.PARSING, 99) > 0
+                    && summary.percentileNanos(PipelineMetrics.Stage.OUTPUT, 50) == 0
+                    && seen[0] == 9 && badPercentile
+                    && printed.toString().contains("processing") && !printed.toString().contains("output")) {
+                System.out.println("✅ Pipeline metrics test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Pipeline metrics test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Pipeline metrics test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+
+    private static void testSortPath() {
+        try {
+            StringBuilder runsLine = new StringBuilder();
+            for (int i = 0; i < 40; i++) {
+                runsLine.append(i < 20 ? 2 * i : 2 * i - 39).append(' ');
+            }
+            int[] runs = {1, 4, 9, 12, 8, 5, 2, 3, 7, 7, 10, -6, 13, 14, 15, 16, 17, 18, 19, 20,
+                21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32};
+            SortPath merged = SortStrategy.RADIX.sort(runs, 0, runs.length);
+            int[] descending = {9, 7, 7, 3, -1};
+            SortPath reversed = SortStrategy.COUNTING.sort(descending, 0, descending.length);
+            int[] random = new int[1000];
+            java.util.Random rnd = new java.util.Random(42);
+            for (int i = 0; i < random.length; i++) {
+                random[i] = rnd.nextInt();
+            }
+            int[] expected = random.clone();
+            java.util.Arrays.sort(expected);
+            SortPath full = SortStrategy.AUTO.sort(random, 0, random.length);
+            InputProcessor processor = new InputProcessor();
+            processor.processToIntArray("1 2 2 3");
+            SortPath processed = processor.lastSortPath();
+            // a too-wide counting range is rejected whether or not the input is presorted
+            int wideRejected = 0;
+            int[] wideSorted = {Integer.MIN_VALUE, Integer.MAX_VALUE};
+            int[] wideRandom = new int[40];
+            for (int i = 0; i < wideRandom.length; i++) {
+                wideRandom[i] = i % 2 == 0 ? Integer.MAX_VALUE - i : Integer.MIN_VALUE + i;
+            }
+            for (int[] wide : new int[][] {wideSorted, wideRandom}) {
+                try {
+                    SortStrategy.COUNTING.sort(wide, 0, wide.length);
+                } catch (IllegalArgumentException e) {
+                    wideRejected++;
+                }
+            }
+            if (merged == SortPath.RUN_MERGE && wideRejected == 2
+                    && java.util.Arrays.equals(runs, new int[] {-6, 1, 2, 3, 4, 5, 7, 7, 8, 9, 10, 12, 13,
+                        14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32})
+                    && reversed == SortPath.REVERSED
+                    && java.util.Arrays.equals(descending, new int[] {-1, 3, 7, 7, 9})
+                    && full == SortPath.FULL_SORT && java.util.Arrays.equals(random, expected)
+                    && processed == SortPath.ALREADY_SORTED
+                    && UserInput.analyzeInput("5,4 3 2").sortPath() == SortPath.REVERSED
+                    && UserInput.analyzeInput(runsLine.toString()).sortPath() == SortPath.RUN_MERGE
+                    && UserInput.analyzeInput("1 3 5 2 4 6").sortPath() == SortPath.FULL_SORT
+                    && java.util.Arrays.equals(UserInput.analyzeInput("1 3 5 2 4 6").sortedValues(),
+                            new int[] {1, 2, 3, 4, 5, 6})) {
+                System.out.println("✅ Sort path test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Sort path test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Sort path test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+
+    private static void testIntKernels() {
+        try {
+            IntKernels kernels = IntKernels.INSTANCE;
+            IntKernels scalar = new IntKernels();
+            java.util.Random rnd = new java.util.Random(3);
+            boolean same = true;
+            for (int n = 1; n <= 70; n++) {
+                int[] values = new int[n + 2];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = n % 3 == 0 ? rnd.nextInt(5) : rnd.nextInt();
+                }
+                same &= kernels.minMax(values, 1, n + 1) == scalar.minMax(values, 1, n + 1);
+                int[] expected = values.clone();
+                java.util.Arrays.sort(expected, 1, n + 1);
+                if (kernels.sortSmall(values, 1, n + 1)) {
+                    same &= java.util.Arrays.equals(values, expected);
+                }
+            }
+            byte[] text = "12, 7,,  -3\n4\r\n 5 , 6,77 8 9 10 11 12 13 14 15 16 17 18 19 20 21 22 23 24 25 26 27 28 29 30 x"
+                    .getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+            java.nio.ByteBuffer bytes = java.nio.ByteBuffer.wrap(text);
+            for (int from = 0; from < 5; from++) {
+                same &= kernels.countTokens(bytes, from, text.length) == scalar.countTokens(bytes, from, text.length);
+            }
+            java.nio.file.Path file = java.nio.file.Files.createTempFile("kernels", ".txt");
+            java.nio.file.Files.write(file, text, java.nio.file.StandardOpenOption.TRUNCATE_EXISTING);
+            String message = null;
+            try {
+                MappedFileParser.parse(file);
+            } catch (NumberFormatException e) {
+                message = e.getMessage();
+            }
+            java.nio.file.Files.delete(file);
+            long packed = scalar.minMax(new int[] {4, -9, 7}, 0, 3);
+            if (same && scalar.countTokens(bytes, 0, text.length) == 31
+                    && (int) (packed >> 32) == -9 && (int) packed == 7
+                    && !scalar.sortSmall(new int[] {2, 1}, 0, 2)
+                    && "For input string: \"x\"".equals(message)) {
+                System.out.println("✅ Int kernels test passed (" + kernels.describe() + ")");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Int kernels test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Int kernels test failed with exception: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+
+    private static void testOffHeapIntList() {
+        try {
+            java.util.Random rnd = new java.util.Random(5);
+            int n = 300_000;
+            int[] expected = new int[n];
+            boolean sorted;
+            boolean indexed;
+            boolean rejected = false;
+            OffHeapIntList values = new OffHeapIntList(1024);
+            try {
+                for (int i = 0; i < n; i++) {
+                    expected[i] = i % 4 == 0 ? rnd.nextInt(100) - 50 : rnd.nextInt();
+                    values.add(expected[i]);
+                }
+                values.sort();
+                java.util.Arrays.sort(expected);
+                sorted = values.size() == n && java.util.Arrays.equals(values.toArray(), expected);
+                values.set(1023, 42);
+                values.set(1024, -42);
+                indexed = values.get(1023) == 42 && values.get(1024) == -42 && values.allocatedBytes() >= 4L * n;
+                try {
+                    values.get(n);
+                } catch (IndexOutOfBoundsException e) {
+                    rejected = true;
+                }
+            } finally {
+                values.close();
+            }
+            boolean closed = false;
+            try {
+                values.add(1);
+            } catch (IllegalStateException e) {
+                closed = values.size() == 0 && values.allocatedBytes() == 0;
+            }
+            if (sorted && indexed && rejected && closed) {
+                System.out.println("✅ Off-heap int list test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Off-heap int list test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Off-heap int list test failed: " + e.getMessage());
+            testsFailed++;
+        }
+    }
+
+    private static void testResultCache() {
+        try {
+            ResultCache cache = new ResultCache(ResultCache.DEFAULT_MAX_BYTES);
+            int[] first = UserInput.processInputToIntArray("5 -3 9, 0", cache);
+            first[0] = 100; // callers own their copy
+            boolean correct = java.util.Arrays.equals(UserInput.processInputToIntArray("5 -3 9, 0", cache),
+                    new int[] {-3, 0, 5, 9})
+                    && UserInput.processInput("2 1", cache).equals(java.util.Arrays.asList(1, 2));
+            // a sink that overwrites its argument must not change the cached result
+            InputProcessor processor = new InputProcessor();
+            for (int i = 0; i < 2; i++) {
+                cache.process("2 1", processor, (sorted, size) -> java.util.Arrays.fill(sorted, 0, size, 7));
+            }
+            correct &= UserInput.processInput("2 1", cache).equals(java.util.Arrays.asList(1, 2));
+            boolean rejected = false;
+            try {
+                UserInput.processInput("1 x", cache);
+            } catch (NumberFormatException e) {
+                rejected = cache.size() == 2;
+            }
+            boolean counted = cache.hits() == 4 && cache.misses() == 3 && cache.evictions() == 0;
+
+            // a small budget keeps only the most recently used lines of each stripe
+            ResultCache small = new ResultCache(ResultCache.STRIPES * 200L);
+            java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(4);
+            java.util.List<java.util.concurrent.Future<Boolean>> results = new java.util.ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(pool.submit(() -> {
+                    boolean same = true;
+                    for (int i = 0; i < 2000; i++) {
+                        int v = i % 300;
+                        same &= java.util.Arrays.equals(small.processToIntArray(v + " " + (-v) + " 7"),
+                                UserInput.processInputToIntArray(v + " " + (-v) + " 7"));
+                    }
+                    return same;
+                }));
+            }
+            boolean concurrent = true;
+            for (java.util.concurrent.Future<Boolean> result : results) {
+                concurrent &= result.get();
+            }
+            pool.shutdown();
+            boolean bounded = small.hits() + small.misses() == 8000 && small.evictions() > 0
+                    && small.weightBytes() <= ResultCache.STRIPES * 200L;
+            if (correct && rejected && counted && concurrent && bounded) {
+                System.out.println("✅ Result cache test passed");
+                testsPassed++;
+            } else {
+                System.out.println("❌ Result cache test failed");
+                testsFailed++;
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Result cache test failed: " + e.getMessage());
+            testsFailed++;
+        }
+    }
 }
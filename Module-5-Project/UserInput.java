@@ -1,12 +1,16 @@
-import java.util.Collections;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Scanner;
-import java.util.Stack;
 
 /**
  * A program to read a series of integers entered by the user.
  * The program accepts input separated by spaces or commas,
- * stores the integers in a Stack, sorts them in ascending order,
- * and prints the final sorted stack.
+ * stores the integers in a primitive int array, sorts them in ascending order,
+ * and prints the final sorted values.
  *
  * <p>Maintenance Note (Project #4 -&gt; Project #5 Maintenance Task):
  * <ul>
@@ -15,47 +19,227 @@ import java.util.Stack;
  *   <li>After sorting in ascending order, the Stack is ordered from bottom (smallest) to top (largest).</li>
  * </ul>
  *
+ * <p>Performance Note:
+ * <ul>
+ *   <li>Replaced Stack&lt;Integer&gt; (a synchronized Vector of boxed values) with a growable int[].</li>
+ *   <li>Replaced Collections.sort with Arrays.sort(int[]) (dual-pivot quicksort on primitives).</li>
+ *   <li>Output format is unchanged: {@code User Entered: [a, b, c]}; it is formatted into a
+ *       reusable byte buffer instead of through Arrays.toString and string concatenation.</li>
+ *   <li>Optional {@code --parallel} flag sorts with Arrays.parallelSort on all cores.</li>
+ *   <li>Optional {@code --stream} flag parses standard input through a fixed-size byte buffer.</li>
+ *   <li>The buffer is allocated once with room for every token of the line instead of growing.</li>
+ * </ul>
+ *
  * @author Larry J. Cameron
  * @version 1.1
  * @since Project #5
  */
 public class UserInput {
 
+    /** Read buffer size for {@code --stream} mode. */
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+
+    /** Write buffer size for the sorted output. */
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
     /**
      * Main method that handles user input, processes integers, and displays sorted results.
-     * Reads a series of integers from standard input, stores them in a Stack,
-     * sorts them in ascending order, and prints the final sorted stack.
+     * Reads a series of integers from standard input, stores them in a growable int array,
+     * sorts them in ascending order, and prints the final sorted values.
      * 
-     * @param args command-line arguments (not used)
+     * @param args command-line arguments; {@code --parallel} sorts with Arrays.parallelSort,
+     *             {@code --stream} parses standard input while reading it instead of
+     *             reading the whole line with Scanner.nextLine()
+     * @throws UncheckedIOException if standard input cannot be read in {@code --stream} mode
      */
     public static void main(String[] args) {
-        try (Scanner scanner = new Scanner(System.in)) {
+        boolean parallel = Arrays.asList(args).contains("--parallel");
+        boolean stream = Arrays.asList(args).contains("--stream");
+
+        // Performance change: primitive buffer instead of Stack<Integer>
+        IntBuffer values;
 
-            // Show prompt once and flush so it always appears in VS Code terminal
+        if (stream) {
+            values = new IntBuffer(IntBuffer.DEFAULT_CAPACITY);
             System.out.print("Enter a series of integers separated by a space or comma: ");
             System.out.flush();
+            try {
+                readStreaming(System.in, values);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            try (Scanner scanner = new Scanner(System.in)) {
 
-            String line = scanner.nextLine().trim();
+                // Show prompt once and flush so it always appears in VS Code terminal
+                System.out.print("Enter a series of integers separated by a space or comma: ");
+                System.out.flush();
 
-            // Maintenance change: use Stack instead of LinkedList
-            Stack<Integer> stack = new Stack<>();
+                String line = scanner.nextLine().trim();
 
-            // Split on one or more commas or whitespace
-            String[] tokens = line.split("[,\\s]+");
-            for (String token : tokens) {
-                try {
-                    int num = Integer.parseInt(token);
-                    stack.push(num); // using push to emphasize stack semantics
-                } catch (NumberFormatException nfe) {
-                    System.err.println("Skipping non-integer token: \"" + token + "\"");
+                // Split on one or more commas or whitespace
+                String[] tokens = line.split("[,\\s]+");
+                // The token count is known, so the buffer is allocated once at the right size.
+                values = new IntBuffer(tokens.length);
+                for (String token : tokens) {
+                    addToken(token, values);
                 }
             }
+        }
+
+        // Sorts the primitive values ascending (no boxing, no Object[] copy).
+        if (parallel) {
+            Arrays.parallelSort(values.values, 0, values.count); // fork-join; stays sequential for small inputs
+        } else {
+            Arrays.sort(values.values, 0, values.count);
+        }
 
-            // Sorts the stack of integers ascending using the Collections framework.
-            Collections.sort(stack); // valid because Stack extends Vector implements List
+        // Prints the final sorted integers in the same [a, b, c] format as before,
+        // formatted straight into a byte buffer instead of through Arrays.toString.
+        try {
+            printValues(System.out, values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes {@code User Entered: [a, b, c]} and a line separator, formatting the digits
+     * into one reusable byte buffer that is written to the stream in large blocks.
+     *
+     * @param out the stream to write to; flushed but not closed
+     * @param values the sorted values
+     * @throws IOException if writing fails
+     */
+    static void printValues(OutputStream out, IntBuffer values) throws IOException {
+        byte[] buffer = new byte[OUTPUT_BUFFER_SIZE];
+        int pos = 0;
+        byte[] label = "User Entered: [".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(label, 0, buffer, 0, label.length);
+        pos += label.length;
+        for (int i = 0; i < values.count; i++) {
+            if (buffer.length - pos < 13) { // ", " plus "-2147483648"
+                out.write(buffer, 0, pos);
+                pos = 0;
+            }
+            if (i > 0) {
+                buffer[pos++] = ',';
+                buffer[pos++] = ' ';
+            }
+            pos = writeInt(values.values[i], buffer, pos);
+        }
+        out.write(buffer, 0, pos);
+        out.write(("]" + System.lineSeparator()).getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    /** Writes the decimal digits of {@code value} at {@code pos} and returns the end position. */
+    private static int writeInt(int value, byte[] buffer, int pos) {
+        // Work on the negative value so Integer.MIN_VALUE needs no special case.
+        int q = value;
+        if (value < 0) {
+            buffer[pos++] = '-';
+        } else {
+            q = -value;
+        }
+        int digits = 1;
+        for (int bound = -10; digits < 10 && q <= bound; bound *= 10) {
+            digits++;
+        }
+        int end = pos + digits;
+        int i = end;
+        do {
+            int r = q / 10;
+            buffer[--i] = (byte) ('0' + r * 10 - q);
+            q = r;
+        } while (q != 0);
+        return end;
+    }
 
-            // Prints the final sorted stack of integers (bottom -> top = ascending).
-            System.out.println("User Entered: " + stack);
+    /**
+     * Reads one line from the stream through a fixed-size byte buffer and parses each token
+     * as soon as it is complete, so the line is never held as a String.
+     * Tokens are separated by commas or whitespace; non-integer tokens are skipped as in the
+     * Scanner path.
+     *
+     * @param in the stream to read
+     * @param values buffer receiving the parsed integers
+     * @throws IOException if reading fails
+     */
+    static void readStreaming(InputStream in, IntBuffer values) throws IOException {
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        byte[] token = new byte[32];
+        int length = 0;
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            for (int i = 0; i < read; i++) {
+                byte b = buffer[i];
+                boolean endOfLine = b == '\n' || b == '\r';
+                if (endOfLine || b == ',' || Character.isWhitespace(b)) {
+                    if (length > 0) {
+                        addToken(token, length, values);
+                        length = 0;
+                    }
+                    if (endOfLine) {
+                        return;
+                    }
+                } else {
+                    if (length == token.length) {
+                        token = Arrays.copyOf(token, length * 2);
+                    }
+                    token[length++] = b;
+                }
+            }
+        }
+        if (length > 0) {
+            addToken(token, length, values);
+        }
+    }
+
+    /** Converts an ASCII token directly, falling back to Integer.parseInt for anything unusual. */
+    private static void addToken(byte[] token, int length, IntBuffer values) {
+        int i = token[0] == '-' || token[0] == '+' ? 1 : 0;
+        if (i < length && length <= 9) { // up to 9 digits can never overflow an int
+            int result = 0;
+            for (; i < length; i++) {
+                int digit = token[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                result = result * 10 + digit;
+            }
+            if (i == length) {
+                values.add(token[0] == '-' ? -result : result);
+                return;
+            }
+        }
+        addToken(new String(token, 0, length, StandardCharsets.UTF_8), values);
+    }
+
+    private static void addToken(String token, IntBuffer values) {
+        try {
+            values.add(Integer.parseInt(token));
+        } catch (NumberFormatException nfe) {
+            System.err.println("Skipping non-integer token: \"" + token + "\"");
+        }
+    }
+
+    /** Growable int array used as the storage for parsed integers. */
+    static final class IntBuffer {
+        static final int DEFAULT_CAPACITY = 16;
+
+        private int[] values;
+        private int count;
+
+        IntBuffer(int capacity) {
+            values = new int[capacity];
+        }
+
+        void add(int value) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, Math.max(DEFAULT_CAPACITY, count + (count >> 1)));
+            }
+            values[count++] = value;
         }
     }
-}
\ No newline at end of file
+}
@@ -322,6 +322,34 @@ public class UserInputTest {
         }
     }
     
+    /**
+     * Tests the --stream flag.
+     * Verifies that streamed parsing skips non-integers and sorts like the Scanner path.
+     */
+    public void testStreamingInput() {
+        setUp();
+        
+        try {
+            String input = "7,x 3\t-1 2147483648 +4\n99\n";
+            System.setIn(new ByteArrayInputStream(input.getBytes()));
+            
+            // Call the main method in streaming mode
+            UserInput.main(new String[]{"--stream"});
+            
+            // Only the first line is read; invalid tokens are reported and skipped
+            String output = outputStream.toString();
+            assert output.contains("User Entered: [-1, 3, 4, 7]") : 
+                "Expected sorted output [-1, 3, 4, 7], but got: " + output;
+            assert output.contains("Skipping non-integer token: \"x\"") : 
+                "Expected skip message for x, but got: " + output;
+            
+            System.out.println("✓ Test Passed: Streaming input");
+            
+        } finally {
+            tearDown();
+        }
+    }
+    
     /**
      * Tests Stack operations directly.
      * Verifies that Stack operations work as expected.
@@ -438,6 +466,9 @@ public class UserInputTest {
             testLargeIntegers();
             totalTests++; passedTests++;
             
+            testStreamingInput();
+            totalTests++; passedTests++;
+            
             // Error handling tests
             testNonIntegerInput();
             totalTests++; passedTests++;
@@ -0,0 +1,36 @@
+package com.larrycameron.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of {@code target/benchmarks.jar}: runs JMH with the usual command-line options
+ * and always attaches the GC profiler, so every result also reports the allocation rate
+ * ({@code gc.alloc.rate.norm} is bytes allocated per operation).
+ *
+ * <pre>
+ *   java -jar target/benchmarks.jar                          # everything
+ *   java -jar target/benchmarks.jar processInput -p size=1000000 -p delimiter=MIXED
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Runs the selected benchmarks.
+     *
+     * @param args JMH command-line options (benchmark regex, {@code -p}, {@code -f}, ...)
+     * @throws Exception if the options are invalid or a benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(options)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
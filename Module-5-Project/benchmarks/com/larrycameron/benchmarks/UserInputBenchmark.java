@@ -0,0 +1,215 @@
+package com.larrycameron.benchmarks;
+
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the parse, sort and format stages of the Module 4 {@code UserInput} pipeline.
+ *
+ * <p>Each benchmark runs over one generated input line per parameter combination:
+ * <ul>
+ *   <li>{@code size} - number of integers, from 10 to 10^7 by default; pass
+ *       {@code -p size=100000000} (with a heap of 8 GB or more) for 10^8.</li>
+ *   <li>{@code delimiter} - {@code SPACE}, {@code COMMA} or {@code MIXED} separators.</li>
+ *   <li>{@code distribution} - {@code SORTED}, {@code REVERSED}, {@code RANDOM} or
+ *       {@code DUPLICATES} (values drawn from 16 distinct numbers).</li>
+ * </ul>
+ *
+ * <p>Module 4 keeps its classes in the default package, which cannot be imported from a named
+ * package (and JMH refuses benchmarks in the default package), so the entry points are bound
+ * once through {@code static final} method handles, which the JIT inlines like direct calls.
+ * Allocation rates come from the GC profiler that {@link BenchmarkRunner} adds to every run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class UserInputBenchmark {
+
+    private static final MethodHandle PROCESS_INPUT;
+    private static final MethodHandle PROCESS_INPUT_TO_INT_ARRAY;
+    private static final MethodHandle IS_VALID_INPUT;
+    private static final MethodHandle COUNT_INTEGERS;
+    private static final MethodHandle NEW_WRITER;
+    private static final MethodHandle WRITE_TEXT;
+    private static final MethodHandle WRITE_LIST;
+    private static final MethodHandle NEW_LINE;
+    private static final MethodHandle FLUSH;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> userInput = Class.forName("UserInput");
+            Class<?> writer = Class.forName("IntListWriter");
+            PROCESS_INPUT = lookup.findStatic(userInput, "processInput",
+                    MethodType.methodType(List.class, String.class));
+            PROCESS_INPUT_TO_INT_ARRAY = lookup.findStatic(userInput, "processInputToIntArray",
+                    MethodType.methodType(int[].class, String.class));
+            IS_VALID_INPUT = lookup.findStatic(userInput, "isValidInput",
+                    MethodType.methodType(boolean.class, String.class));
+            COUNT_INTEGERS = lookup.findStatic(userInput, "countIntegers",
+                    MethodType.methodType(int.class, String.class));
+            NEW_WRITER = lookup.findConstructor(writer, MethodType.methodType(void.class, OutputStream.class))
+                    .asType(MethodType.methodType(Object.class, OutputStream.class));
+            WRITE_TEXT = lookup.findVirtual(writer, "write", MethodType.methodType(void.class, String.class))
+                    .asType(MethodType.methodType(void.class, Object.class, String.class));
+            WRITE_LIST = lookup.findVirtual(writer, "writeList",
+                    MethodType.methodType(void.class, int[].class, int.class, int.class))
+                    .asType(MethodType.methodType(void.class, Object.class, int[].class, int.class, int.class));
+            NEW_LINE = lookup.findVirtual(writer, "newLine", MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(void.class, Object.class));
+            FLUSH = lookup.findVirtual(writer, "flush", MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(void.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Token separators used when generating the input line. */
+    public enum Delimiter {
+        SPACE, COMMA, MIXED
+    }
+
+    /** Order and spread of the generated values. */
+    public enum Distribution {
+        SORTED, REVERSED, RANDOM, DUPLICATES
+    }
+
+    @Param({"10", "1000", "100000", "10000000"})
+    public int size;
+
+    @Param({"SPACE", "COMMA", "MIXED"})
+    public Delimiter delimiter;
+
+    @Param({"SORTED", "REVERSED", "RANDOM", "DUPLICATES"})
+    public Distribution distribution;
+
+    private String input;
+    private int[] sorted;
+    private List<?> sortedList;
+    private final CountingOutputStream sink = new CountingOutputStream();
+
+    /** Builds the input line and the sorted values the print benchmarks format. */
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        int[] values = values(size, distribution, new Random(42));
+        input = line(values, delimiter);
+        sorted = (int[]) PROCESS_INPUT_TO_INT_ARRAY.invokeExact(input);
+        sortedList = (List<?>) PROCESS_INPUT.invokeExact(input);
+    }
+
+    /** Parse and sort, returning the {@code List<Integer>} view. */
+    @Benchmark
+    public List<?> processInput() throws Throwable {
+        return (List<?>) PROCESS_INPUT.invokeExact(input);
+    }
+
+    /** Parse and sort, returning the sorted {@code int[]}. */
+    @Benchmark
+    public int[] processInputToIntArray() throws Throwable {
+        return (int[]) PROCESS_INPUT_TO_INT_ARRAY.invokeExact(input);
+    }
+
+    /** Validation pass only. */
+    @Benchmark
+    public boolean isValidInput() throws Throwable {
+        return (boolean) IS_VALID_INPUT.invokeExact(input);
+    }
+
+    /** Counting pass only. */
+    @Benchmark
+    public int countIntegers() throws Throwable {
+        return (int) COUNT_INTEGERS.invokeExact(input);
+    }
+
+    /** Print path used by {@code UserInput.main}: IntListWriter over the sorted values. */
+    @Benchmark
+    public long printWithWriter() throws Throwable {
+        Object writer = NEW_WRITER.invokeExact((OutputStream) sink);
+        WRITE_TEXT.invokeExact(writer, "User Entered: ");
+        WRITE_LIST.invokeExact(writer, sorted, 0, sorted.length);
+        NEW_LINE.invokeExact(writer);
+        FLUSH.invokeExact(writer);
+        return sink.count;
+    }
+
+    /** Previous print path, for comparison: {@code "User Entered: " + list} encoded by the stream. */
+    @Benchmark
+    public long printWithToString() {
+        byte[] bytes = ("User Entered: " + sortedList + System.lineSeparator()).getBytes(Charset.defaultCharset());
+        sink.write(bytes, 0, bytes.length);
+        return sink.count;
+    }
+
+    private static int[] values(int size, Distribution distribution, Random random) {
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = distribution == Distribution.DUPLICATES ? random.nextInt(16) : random.nextInt();
+        }
+        if (distribution == Distribution.SORTED || distribution == Distribution.REVERSED) {
+            Arrays.sort(values);
+            if (distribution == Distribution.REVERSED) {
+                for (int i = 0, j = size - 1; i < j; i++, j--) {
+                    int t = values[i];
+                    values[i] = values[j];
+                    values[j] = t;
+                }
+            }
+        }
+        return values;
+    }
+
+    private static String line(int[] values, Delimiter delimiter) {
+        StringBuilder sb = new StringBuilder(values.length * 12);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                if (delimiter == Delimiter.SPACE) {
+                    sb.append(' ');
+                } else if (delimiter == Delimiter.COMMA) {
+                    sb.append(',');
+                } else {
+                    sb.append(i % 3 == 0 ? ", " : i % 3 == 1 ? " " : ",");
+                }
+            }
+            sb.append(values[i]);
+        }
+        return sb.toString();
+    }
+
+    /** Discards output but keeps a byte count so the writes cannot be optimised away. */
+    static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}